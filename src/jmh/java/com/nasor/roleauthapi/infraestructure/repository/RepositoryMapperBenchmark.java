@@ -0,0 +1,107 @@
+package com.nasor.roleauthapi.infraestructure.repository;
+
+import com.nasor.roleauthapi.domain.RefreshToken;
+import com.nasor.roleauthapi.domain.Role;
+import com.nasor.roleauthapi.domain.User;
+import com.nasor.roleauthapi.infraestructure.persistence.RefreshTokenEntity;
+import com.nasor.roleauthapi.infraestructure.persistence.UserEntity;
+import com.nasor.roleauthapi.infraestructure.security.RefreshTokenCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/domain mapping of the JPA adapters, without a database. {@code toJpaRefreshTokenEntity}
+ * includes hashing the token, which is part of every save.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryMapperBenchmark {
+    private UserRepositoryImpl userRepository;
+    private RefreshTokenRepositoryImpl refreshTokenRepository;
+    private User user;
+    private UserEntity userEntity;
+    private RefreshToken refreshToken;
+    private RefreshTokenEntity refreshTokenEntity;
+
+    @Setup
+    public void setUp() {
+        user = User.builder()
+                .id(42L)
+                .username("benchmark-user")
+                .password("$2a$10$abcdefghijklmnopqrstuuM5x2n6Kk4ZzGZq6m1uRZ8y0k3mM2y8e")
+                .firstName("Bench")
+                .lastName("Mark")
+                .role(Role.USER)
+                .build();
+        userEntity = UserEntity.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .password(user.getPassword())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .role(user.getRole())
+                .build();
+
+        // Only getReferenceById is reached by the mappers; it hands back a ready entity instead of a Hibernate proxy.
+        SpringDataUserRepository springDataUserRepository = (SpringDataUserRepository) Proxy.newProxyInstance(
+                SpringDataUserRepository.class.getClassLoader(),
+                new Class<?>[]{SpringDataUserRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getReferenceById")) {
+                        return userEntity;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        RefreshTokenCodec refreshTokenCodec = new RefreshTokenCodec();
+        userRepository = new UserRepositoryImpl(springDataUserRepository, null, null, 1000);
+        refreshTokenRepository = new RefreshTokenRepositoryImpl(null, springDataUserRepository, null,
+                refreshTokenCodec, null);
+
+        refreshToken = RefreshToken.builder()
+                .id(7L)
+                .token(refreshTokenCodec.generate())
+                .familyId(UUID.randomUUID())
+                .user(user)
+                .expiresAt(Instant.now().plus(7, ChronoUnit.DAYS))
+                .build();
+        refreshTokenEntity = refreshTokenRepository.toJpaRefreshTokenEntity(refreshToken);
+    }
+
+    @Benchmark
+    public User toDomainUser() {
+        return userRepository.toDomainUser(userEntity);
+    }
+
+    @Benchmark
+    public UserEntity toUserEntity() {
+        return userRepository.toUserEntity(user);
+    }
+
+    @Benchmark
+    public RefreshToken toDomainRefreshToken() {
+        return refreshTokenRepository.toDomainRefreshToken(refreshTokenEntity, refreshToken.getToken());
+    }
+
+    @Benchmark
+    public RefreshTokenEntity toJpaRefreshTokenEntity() {
+        return refreshTokenRepository.toJpaRefreshTokenEntity(refreshToken);
+    }
+}
@@ -0,0 +1,149 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import com.nasor.roleauthapi.domain.Role;
+import com.nasor.roleauthapi.domain.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access token issue and verification. Issuing compares the hand-written encoder with the jjwt builder
+ * and does not depend on the verification params. {@code extractUsername} always goes through the jjwt
+ * parser; {@code isTokenValid} takes the request path, with or without the fast verifier and the
+ * verified-token cache; {@code legacyThreeParse} is the filter path before the parser was cached.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+    private static final String SECRET = "YmVuY2htYXJrLW9ubHktaG1hYy1zZWNyZXQtdGhhdC1pcy1hdC1sZWFzdC0yNTYtYml0cy1sb25n";
+    private static final String USERNAME = "benchmark-user";
+
+    @State(Scope.Benchmark)
+    public static class GenerateState {
+        private JwtService jwtService;
+        private User user;
+
+        @Setup
+        public void setUp() {
+            jwtService = newJwtService(true, true);
+            // Both benchmarks then sign the same four claims.
+            ReflectionTestUtils.setField(jwtService, "claimsOnlyAuth", true);
+            user = newUser();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class VerifyState {
+        @Param({"true", "false"})
+        public boolean fastVerify;
+
+        @Param({"true", "false"})
+        public boolean verifiedCache;
+
+        private JwtService jwtService;
+        private String token;
+
+        @Setup
+        public void setUp() {
+            jwtService = newJwtService(fastVerify, verifiedCache);
+            token = jwtService.generateToken(newUser());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LegacyState {
+        private String token;
+
+        @Setup
+        public void setUp() {
+            token = newJwtService(true, false).generateToken(newUser());
+        }
+    }
+
+    @Benchmark
+    public String generateToken(GenerateState state) {
+        return state.jwtService.generateToken(state.user);
+    }
+
+    @Benchmark
+    public String generateTokenJjwt(GenerateState state) {
+        User user = state.user;
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtService.ROLE_CLAIM, user.getRole().name());
+        claims.put(JwtService.USER_ID_CLAIM, user.getId());
+        claims.put(JwtService.FIRST_NAME_CLAIM, user.getFirstName());
+        claims.put(JwtService.LAST_NAME_CLAIM, user.getLastName());
+        return state.jwtService.buildToken(claims, user.getUsername(), state.jwtService.getJwtExpiration());
+    }
+
+    @Benchmark
+    public String extractUsername(VerifyState state) {
+        return state.jwtService.extractUsername(state.token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid(VerifyState state) {
+        return state.jwtService.isTokenValid(state.token, USERNAME);
+    }
+
+    // extractUsername, then isTokenValid re-extracting the username and the expiration, each call
+    // decoding the key and building a parser.
+    @Benchmark
+    public boolean legacyThreeParse(LegacyState state) {
+        String username = legacyParse(state.token).getSubject();
+        return legacyParse(state.token).getSubject().equals(username)
+                && !legacyParse(state.token).getExpiration().before(new Date());
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static JwtService newJwtService(boolean fastVerify, boolean verifiedCache) {
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(verifiedCache, 100_000, 64L * 1024 * 1024,
+                new SimpleMeterRegistry());
+        JwtService jwtService = new JwtService(verifiedTokenCache, new JwtKeyRing("HS256", "", "", ""));
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 604_800_000L);
+        ReflectionTestUtils.setField(jwtService, "fastVerify", fastVerify);
+        jwtService.init();
+        return jwtService;
+    }
+
+    private static User newUser() {
+        return User.builder()
+                .id(42L)
+                .username(USERNAME)
+                .firstName("Bench")
+                .lastName("Mark")
+                .role(Role.USER)
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import com.nasor.roleauthapi.domain.Role;
+import com.nasor.roleauthapi.domain.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserDetailsBenchmark {
+    private User user;
+    private UserDetailsImpl userDetails;
+    private VerifiedClaims claims;
+
+    @Setup
+    public void setUp() {
+        user = User.builder()
+                .id(42L)
+                .username("benchmark-user")
+                .password("$2a$10$abcdefghijklmnopqrstuuM5x2n6Kk4ZzGZq6m1uRZ8y0k3mM2y8e")
+                .firstName("Bench")
+                .lastName("Mark")
+                .role(Role.ADMIN)
+                .build();
+        userDetails = UserDetailsImpl.build(user);
+        claims = new VerifiedClaims("benchmark-user", Role.ADMIN.name(), 42L, "Bench", "Mark",
+                Instant.now().plus(1, ChronoUnit.HOURS), "benchmark-token-id");
+    }
+
+    @Benchmark
+    public UserDetailsImpl build() {
+        return UserDetailsImpl.build(user);
+    }
+
+    @Benchmark
+    public UserDetailsImpl fromClaims() {
+        return UserDetailsImpl.fromClaims(claims);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return userDetails.getAuthorities();
+    }
+}
@@ -0,0 +1,393 @@
+package com.nasor.roleauthapi.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nasor.roleauthapi.RoleAuthApiApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the whole application against an embedded PostgreSQL and drives it over HTTP with a weighted mix
+ * of requests, then reports throughput and latency percentiles per endpoint. Runs offline on one machine.
+ * <p>
+ * Configured through system properties: {@code loadtest.users}, {@code loadtest.threads},
+ * {@code loadtest.warmup-seconds}, {@code loadtest.duration-seconds}, {@code loadtest.mix}
+ * (e.g. {@code register=5,login=10,refresh=25,getUser=50,adminList=10}), {@code loadtest.seed} and
+ * {@code loadtest.result}. Any application property can be overridden the same way, e.g.
+ * {@code -Dapp.password-hashing.strength=10}.
+ * <p>
+ * Each worker sends its next request as soon as the previous one returns (closed loop), so latencies
+ * under saturation read lower than an open-loop client would see.
+ */
+public final class LoadTestRunner {
+    private static final String PASSWORD = "LoadTest-Password-1";
+    private static final String ADMIN_PASSWORD = "loadtest-admin-password";
+    private static final String SEEDED_PREFIX = "loadtest-u-";
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    enum Operation {
+        REGISTER("register"), LOGIN("login"), REFRESH("refresh"), GET_USER("getUser"), ADMIN_LIST("adminList");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+    }
+
+    static final class SeededUser {
+        final String username;
+        long id;
+        String accessToken;
+        String refreshToken;
+
+        SeededUser(String username) {
+            this.username = username;
+        }
+    }
+
+    static final class WorkerResult {
+        final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+
+        WorkerResult() {
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new Histogram(HIGHEST_TRACKABLE_NANOS, 3));
+                errors.put(operation, 0L);
+            }
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final int users = Integer.getInteger("loadtest.users", 200);
+    private final int threads = Integer.getInteger("loadtest.threads", 32);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+    private final int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 60);
+    private final long seed = Long.getLong("loadtest.seed", 42L);
+    private final Path resultFile = Path.of(System.getProperty("loadtest.result", "target/loadtest-result.json"));
+    private final Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix",
+            "register=5,login=10,refresh=25,getUser=50,adminList=10"));
+    private String baseUrl;
+    private String adminAccessToken;
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner().run();
+    }
+
+    private void run() throws Exception {
+        // Devtools would restart the app in a fresh class loader; docker compose support would try to start a database.
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(RoleAuthApiApplication.class)
+                    .run(applicationArguments(postgres));
+            try {
+                baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+                runLoad();
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    // Passed as command-line arguments so they beat application.properties; explicit -D settings still win.
+    private String[] applicationArguments(EmbeddedPostgres postgres) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+        properties.put("spring.datasource.username", "postgres");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.docker.compose.enabled", "false");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("logging.level.org.springframework.security", "WARN");
+        properties.put("server.port", "0");
+        properties.put("management.server.port", "-1");
+        properties.put("jwt.secret", "bG9hZHRlc3Qtb25seS1obWFjLXNlY3JldC10aGF0LWlzLWF0LWxlYXN0LTI1Ni1iaXRz");
+        properties.put("app.admin.admin-password", ADMIN_PASSWORD);
+        // Every simulated client shares one IP, so per-IP throttling would reject most logins.
+        properties.put("app.login-throttle.enabled", "false");
+        List<String> arguments = new ArrayList<>();
+        properties.forEach((key, value) -> {
+            if (System.getProperty(key) == null) {
+                arguments.add("--" + key + "=" + value);
+            }
+        });
+        return arguments.toArray(String[]::new);
+    }
+
+    private void runLoad() throws Exception {
+        adminAccessToken = login("admin", ADMIN_PASSWORD).get("accessToken").asText();
+        List<SeededUser> seededUsers = seedUsers();
+
+        System.out.printf(Locale.ROOT, "Running %d threads for %ds (+%ds warmup), %d users, mix %s%n",
+                threads, durationSeconds, warmupSeconds, users, mix);
+        long startedAt = System.nanoTime();
+        long measureFrom = startedAt + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long measureUntil = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<WorkerResult>> futures = new ArrayList<>();
+        for (int worker = 0; worker < threads; worker++) {
+            // Each worker owns its slice of users, so no two workers ever rotate the same refresh token.
+            List<SeededUser> owned = new ArrayList<>();
+            for (int i = worker; i < seededUsers.size(); i += threads) {
+                owned.add(seededUsers.get(i));
+            }
+            int workerId = worker;
+            futures.add(executor.submit(() -> work(workerId, owned, measureFrom, measureUntil)));
+        }
+        WorkerResult total = new WorkerResult();
+        for (Future<WorkerResult> future : futures) {
+            WorkerResult result = future.get();
+            for (Operation operation : Operation.values()) {
+                total.latencies.get(operation).add(result.latencies.get(operation));
+                total.errors.merge(operation, result.errors.get(operation), Long::sum);
+            }
+        }
+        executor.shutdown();
+        report(total);
+    }
+
+    private List<SeededUser> seedUsers() throws Exception {
+        if (users < threads) {
+            throw new IllegalArgumentException("loadtest.users must be at least loadtest.threads");
+        }
+        List<SeededUser> seededUsers = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            seededUsers.add(new SeededUser(SEEDED_PREFIX + i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> registrations = new ArrayList<>();
+        for (SeededUser user : seededUsers) {
+            registrations.add(executor.submit(() -> {
+                JsonNode tokens = send(post("/api/v1/auth/register", registration(user.username)), 201);
+                user.accessToken = tokens.get("accessToken").asText();
+                user.refreshToken = tokens.get("refreshToken").asText();
+                return null;
+            }));
+        }
+        for (Future<?> registration : registrations) {
+            registration.get();
+        }
+        executor.shutdown();
+
+        // Registration does not return the id, so it is looked up the way an admin client would.
+        Map<String, Long> ids = new ConcurrentHashMap<>();
+        String cursor = "";
+        do {
+            JsonNode page = send(get("/api/v1/admin/users?limit=500&usernamePrefix=" + SEEDED_PREFIX + cursor,
+                    adminAccessToken), 200);
+            page.get("users").forEach(user -> ids.put(user.get("username").asText(), user.get("id").asLong()));
+            JsonNode nextCursor = page.get("nextCursor");
+            cursor = nextCursor == null || nextCursor.isNull() ? null : "&cursor=" + nextCursor.asLong();
+        } while (cursor != null);
+        for (SeededUser user : seededUsers) {
+            user.id = ids.get(user.username);
+        }
+        return seededUsers;
+    }
+
+    private WorkerResult work(int workerId, List<SeededUser> owned, long measureFrom, long measureUntil) {
+        WorkerResult result = new WorkerResult();
+        Random random = new Random(seed + workerId);
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int registered = 0;
+        long now;
+        while ((now = System.nanoTime()) < measureUntil) {
+            Operation operation = pick(random.nextInt(totalWeight));
+            SeededUser user = owned.get(random.nextInt(owned.size()));
+            boolean ok;
+            long start = System.nanoTime();
+            try {
+                ok = execute(operation, user, "loadtest-r-" + workerId + "-" + registered++);
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long elapsed = System.nanoTime() - start;
+            if (now >= measureFrom) {
+                result.latencies.get(operation).recordValue(Math.min(elapsed, HIGHEST_TRACKABLE_NANOS));
+                if (!ok) {
+                    result.errors.merge(operation, 1L, Long::sum);
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean execute(Operation operation, SeededUser user, String newUsername)
+            throws IOException, InterruptedException {
+        return switch (operation) {
+            case REGISTER -> status(post("/api/v1/auth/register", registration(newUsername))) == 201;
+            case LOGIN -> updateTokens(user, post("/api/v1/auth/login", credentials(user.username, PASSWORD)));
+            case REFRESH -> updateTokens(user, post("/api/v1/auth/refresh-token",
+                    objectMapper.createObjectNode().put("refreshToken", user.refreshToken)));
+            case GET_USER -> status(get("/api/v1/users/" + user.id, user.accessToken)) == 200;
+            case ADMIN_LIST -> status(get("/api/v1/admin/users?limit=50", adminAccessToken)) == 200;
+        };
+    }
+
+    private boolean updateTokens(SeededUser user, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return false;
+        }
+        JsonNode tokens = objectMapper.readTree(response.body());
+        user.accessToken = tokens.get("accessToken").asText();
+        user.refreshToken = tokens.get("refreshToken").asText();
+        return true;
+    }
+
+    private void report(WorkerResult total) throws IOException {
+        ObjectNode json = objectMapper.createObjectNode()
+                .put("threads", threads)
+                .put("users", users)
+                .put("warmupSeconds", warmupSeconds)
+                .put("durationSeconds", durationSeconds);
+        ObjectNode mixNode = json.putObject("mix");
+        mix.forEach((operation, weight) -> mixNode.put(operation.key, weight));
+        ObjectNode endpoints = json.putObject("endpoints");
+
+        System.out.printf(Locale.ROOT, "%-10s %10s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = total.latencies.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            double throughput = histogram.getTotalCount() / (double) durationSeconds;
+            double p50 = millis(histogram.getValueAtPercentile(50));
+            double p99 = millis(histogram.getValueAtPercentile(99));
+            double p999 = millis(histogram.getValueAtPercentile(99.9));
+            double max = millis(histogram.getMaxValue());
+            System.out.printf(Locale.ROOT, "%-10s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n", operation.key,
+                    histogram.getTotalCount(), total.errors.get(operation), throughput, p50, p99, p999, max);
+            endpoints.putObject(operation.key)
+                    .put("requests", histogram.getTotalCount())
+                    .put("errors", total.errors.get(operation))
+                    .put("throughput", throughput)
+                    .put("p50Ms", p50)
+                    .put("p99Ms", p99)
+                    .put("p999Ms", p999)
+                    .put("maxMs", max);
+        }
+        Path parent = resultFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(resultFile.toFile(), json);
+        System.out.println("Results written to " + resultFile.toAbsolutePath());
+    }
+
+    private JsonNode login(String username, String password) throws IOException, InterruptedException {
+        return send(post("/api/v1/auth/login", credentials(username, password)), 200);
+    }
+
+    private JsonNode send(HttpRequest request, int expectedStatus) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " returned "
+                    + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private int status(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest post(String path, JsonNode body) throws IOException {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+    }
+
+    private HttpRequest get(String path, String accessToken) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + accessToken)
+                .GET()
+                .build();
+    }
+
+    private JsonNode registration(String username) {
+        return objectMapper.createObjectNode()
+                .put("username", username)
+                .put("firstName", "Load")
+                .put("lastName", "Test")
+                .put("password", PASSWORD);
+    }
+
+    private JsonNode credentials(String username, String password) {
+        return objectMapper.createObjectNode()
+                .put("username", username)
+                .put("password", password);
+    }
+
+    private Operation pick(int ticket) {
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty request mix");
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            Operation operation = null;
+            for (Operation candidate : Operation.values()) {
+                if (candidate.key.equalsIgnoreCase(parts[0].trim())) {
+                    operation = candidate;
+                }
+            }
+            if (operation == null || parts.length != 2) {
+                throw new IllegalArgumentException("Unknown loadtest.mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(operation, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no positive weights");
+        }
+        return weights;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
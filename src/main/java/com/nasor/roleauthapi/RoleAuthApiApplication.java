@@ -2,8 +2,10 @@ package com.nasor.roleauthapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class RoleAuthApiApplication {
 
     public static void main(String[] args) {
@@ -8,4 +8,7 @@ public interface AuthService {
     AuthResponseDto registerUser(RegisterRequestDto registerRequestDto);
     AuthResponseDto login(LoginRequestDto loginRequestDto);
     AuthResponseDto refreshToken(String refreshToken);
+    void revokeAllSessions(Long userId);
+
+    void logout(String accessToken);
 }
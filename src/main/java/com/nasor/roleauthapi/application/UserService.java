@@ -1,15 +1,17 @@
 package com.nasor.roleauthapi.application;
 
 import com.nasor.roleauthapi.application.dto.RegisterRequestDto;
+import com.nasor.roleauthapi.application.dto.UserPageResponseDto;
 import com.nasor.roleauthapi.application.dto.UserResponseDto;
 import com.nasor.roleauthapi.domain.Role;
 
-import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserService {
     Optional<UserResponseDto> findUserById(Long id);
-    List<UserResponseDto> findAllUsers();
+    void exportUsers(Consumer<UserResponseDto> consumer);
+    UserPageResponseDto findUsers(Long cursor, int limit, Role role, String usernamePrefix);
     UserResponseDto update(Long id, RegisterRequestDto registerRequestDto);
     UserResponseDto updateRole(Long id, Role role) ;
 }
@@ -7,7 +7,7 @@ public record AuthResponseDto(
         @Schema(description = "Access JWT Token", example = "eyJhbGciOiJIUzUxMiJ9.eyJzdWIiOiJhZG1pbkBleGFtcGxlLmNvbSIsInJvbG.123abc...")
         String accessToken,
 
-        @Schema(description = "Refresh Token, can be used to obtain new Access Tokens.", example = "a1b2c3d4-e5f6-7890-1234-567890abcdef")
+        @Schema(description = "Refresh Token, can be used to obtain new Access Tokens.", example = "q2Xn8vJ0cR4tWk9LmZ1sYb7HdE3pAu6FgN5oIyTeVhM")
         String refreshToken,
 
         @Schema(description = "Token Type (ALWAYS 'Bearer').", example = "Bearer")
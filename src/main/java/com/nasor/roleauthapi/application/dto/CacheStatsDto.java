@@ -0,0 +1,25 @@
+package com.nasor.roleauthapi.application.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Usage statistics of an in-memory cache.")
+public record CacheStatsDto(
+        @Schema(description = "Cache name", example = "userDetails")
+        String name,
+
+        @Schema(description = "Approximate number of entries currently cached.", example = "1250")
+        long size,
+
+        @Schema(description = "Lookups served from the cache.", example = "98231")
+        long hitCount,
+
+        @Schema(description = "Lookups that had to load the value.", example = "5120")
+        long missCount,
+
+        @Schema(description = "Entries removed because of size or expiry limits.", example = "310")
+        long evictionCount,
+
+        @Schema(description = "Ratio of hits over all lookups.", example = "0.95")
+        double hitRate
+) {
+}
@@ -5,7 +5,7 @@ import jakarta.validation.constraints.NotBlank;
 
 @Schema(description = "Entry data to request a Refresh Token.")
 public record RefreshTokenRequestDto (
-        @Schema(description = "Token previously given to generate new Access Tokens.", example = "e5f6a7b8-c9d0-1234-5678-90abcdef1234")
+        @Schema(description = "Token previously given to generate new Access Tokens.", example = "q2Xn8vJ0cR4tWk9LmZ1sYb7HdE3pAu6FgN5oIyTeVhM")
         @NotBlank(message = "Refresh token cannot be blank")
         String refreshToken)
 {
@@ -0,0 +1,15 @@
+package com.nasor.roleauthapi.application.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "A page of users ordered by ID.")
+public record UserPageResponseDto(
+        @Schema(description = "Users in this page.")
+        List<UserResponseDto> users,
+
+        @Schema(description = "Cursor to request the next page, null when there are no more users.", example = "150")
+        Long nextCursor
+) {
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
+import java.util.UUID;
 
 @Data
 @AllArgsConstructor
@@ -14,6 +15,8 @@ import java.time.Instant;
 public class RefreshToken {
     private Long id;
     private String token;
+    // One family per login; rotation keeps the family and replaces its token.
+    private UUID familyId;
     private User user;
     private Instant expiresAt;
 
@@ -1,5 +1,6 @@
 package com.nasor.roleauthapi.domain;
 
+import java.time.Instant;
 import java.util.Optional;
 
 public interface RefreshTokenRepository {
@@ -7,5 +8,9 @@ public interface RefreshTokenRepository {
     RefreshToken save(RefreshToken refreshToken);
     void delete(RefreshToken refreshToken);
     void deleteByUserId(Long userId);
-    Optional<RefreshToken> findByUserId(Long userId);
+    Optional<RefreshToken> rotate(String currentToken, String newToken, Instant newExpiresAt);
+    // Only recognizes the token a family was last rotated away from; older tokens of the family are simply unknown.
+    boolean revokeFamilyOfReusedToken(String token);
+    // Keeps the user's most recently used families (latest expiry first) and deletes the rest.
+    void deleteFamiliesBeyond(Long userId, int familiesToKeep);
 }
@@ -3,11 +3,14 @@ package com.nasor.roleauthapi.domain;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserRepository {
     Optional<User> findByUsername(String username);
     Optional<User> findById(Long id);
     User save(User user);
+    Optional<User> insertIfAbsent(User user);
     boolean existsByUsername(String username);
-    List<User> findAllUsers();
+    void forEachUser(Consumer<User> action);
+    List<User> findPageAfterId(Long afterId, int limit, Role role, String usernamePrefix);
 }
@@ -1,15 +1,24 @@
 package com.nasor.roleauthapi.infraestructure.config;
 
+import com.nasor.roleauthapi.domain.User;
 import com.nasor.roleauthapi.domain.UserRepository;
+import com.nasor.roleauthapi.infraestructure.security.BCryptStrengthCalibrator;
+import com.nasor.roleauthapi.infraestructure.security.BoundedPasswordEncoder;
 import com.nasor.roleauthapi.infraestructure.security.UserDetailsImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Map;
+
 @Configuration
 public class ApplicationConfig {
 
@@ -19,6 +28,8 @@ public class ApplicationConfig {
         this.userRepository = userRepository;
     }
 
+    // Used by login, so the password hash is always read from the database; the JWT filter loads
+    // principals through UserDetailsCache instead.
     @Bean
     public UserDetailsService userDetailsService() {
         return username -> userRepository.findByUsername(username)
@@ -32,7 +43,54 @@ public class ApplicationConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public UserDetailsPasswordService userDetailsPasswordService() {
+        // Called by DaoAuthenticationProvider after a successful login whose stored hash is outdated.
+        return (userDetails, newEncodedPassword) -> {
+            User user = userRepository.findByUsername(userDetails.getUsername())
+                    .orElseThrow(() -> new RuntimeException("User not found: " + userDetails.getUsername()));
+            user.setPassword(newEncodedPassword);
+            return UserDetailsImpl.build(userRepository.save(user));
+        };
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${app.password-hashing.strength:0}") int strength,
+                                           @Value("${app.password-hashing.target-millis:150}") long targetMillis,
+                                           @Value("${app.password-hashing.min-strength:10}") int minStrength,
+                                           @Value("${app.password-hashing.max-strength:16}") int maxStrength,
+                                           @Value("${app.password-hashing.threads:0}") int threads,
+                                           @Value("${app.password-hashing.queue-capacity:0}") int queueCapacity,
+                                           @Value("${server.tomcat.threads.max:200}") int tomcatMaxThreads,
+                                           @Value("${app.password-hashing.retry-after-seconds:1}") long retryAfterSeconds,
+                                           MeterRegistry meterRegistry) {
+        int bcryptStrength = strength > 0 ? strength
+                : BCryptStrengthCalibrator.calibrate(targetMillis, minStrength, maxStrength);
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength) {
+            // BCrypt only flags hashes below the current cost. Costlier ones are lowered only with a fixed,
+            // fleet-wide strength: calibrated nodes can land on different costs and would keep flipping a
+            // user's hash between them.
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return super.upgradeEncoding(encodedPassword)
+                        || strength > 0 && BCryptStrengthCalibrator.strengthOf(encodedPassword) > strength;
+            }
+        };
+
+        // Hashes stored before the {id} prefix was introduced are plain BCrypt; they still match
+        // and are flagged for upgrade.
+        DelegatingPasswordEncoder delegatingEncoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegatingEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        // Leave half of the cores to request handling unless a pool size is configured.
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        // Every queued or running hash parks a request thread, so together they may hold at most half of
+        // the Tomcat pool; by default the queue takes a quarter of it.
+        int queueSize = queueCapacity > 0 ? queueCapacity : Math.max(1, tomcatMaxThreads / 4 - poolSize);
+        if (poolSize + queueSize > tomcatMaxThreads / 2) {
+            throw new IllegalStateException("app.password-hashing.threads (" + poolSize + ") plus queue-capacity ("
+                    + queueSize + ") must not exceed half of server.tomcat.threads.max (" + tomcatMaxThreads + ")");
+        }
+        return new BoundedPasswordEncoder(delegatingEncoder, poolSize, queueSize,
+                retryAfterSeconds, meterRegistry);
     }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.nasor.roleauthapi.infraestructure.config;
+
+import com.nasor.roleauthapi.infraestructure.security.AdaptiveConcurrencyLimiter;
+import com.nasor.roleauthapi.infraestructure.security.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "app.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter authConcurrencyLimiter(
+            @Value("${app.concurrency-limit.auth.initial-limit:20}") int initialLimit,
+            @Value("${app.concurrency-limit.auth.min-limit:4}") int minLimit,
+            @Value("${app.concurrency-limit.auth.max-limit:200}") int maxLimit,
+            @Value("${app.concurrency-limit.auth.latency-target:PT0.5S}") Duration latencyTarget,
+            @Value("${app.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+            MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimiter("auth", initialLimit, minLimit, maxLimit,
+                latencyTarget, backoffRatio, meterRegistry);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter protectedConcurrencyLimiter(
+            @Value("${app.concurrency-limit.protected.initial-limit:100}") int initialLimit,
+            @Value("${app.concurrency-limit.protected.min-limit:10}") int minLimit,
+            @Value("${app.concurrency-limit.protected.max-limit:1000}") int maxLimit,
+            @Value("${app.concurrency-limit.protected.latency-target:PT0.1S}") Duration latencyTarget,
+            @Value("${app.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+            MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimiter("protected", initialLimit, minLimit, maxLimit,
+                latencyTarget, backoffRatio, meterRegistry);
+    }
+
+    // Ahead of Spring Security, so shed requests cost neither token verification nor a user lookup.
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            AdaptiveConcurrencyLimiter authConcurrencyLimiter,
+            AdaptiveConcurrencyLimiter protectedConcurrencyLimiter,
+            @Value("${app.concurrency-limit.retry-after-seconds:1}") long retryAfterSeconds) {
+        Map<String, AdaptiveConcurrencyLimiter> limitersByPathPrefix = new LinkedHashMap<>();
+        limitersByPathPrefix.put("/api/v1/auth/", authConcurrencyLimiter);
+        limitersByPathPrefix.put("/api/v1/users", protectedConcurrencyLimiter);
+        limitersByPathPrefix.put("/api/v1/admin/", protectedConcurrencyLimiter);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(limitersByPathPrefix, retryAfterSeconds));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
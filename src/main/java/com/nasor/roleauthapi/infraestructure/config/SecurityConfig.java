@@ -1,6 +1,8 @@
 package com.nasor.roleauthapi.infraestructure.config;
 
 import com.nasor.roleauthapi.infraestructure.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -20,10 +22,13 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
     private final AuthenticationConfiguration authenticationConfiguration;
+    private final int managementPort;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, AuthenticationConfiguration authenticationConfiguration) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, AuthenticationConfiguration authenticationConfiguration,
+                          @Value("${management.server.port:-1}") int managementPort) {
         this.jwtAuthFilter = jwtAuthFilter;
         this.authenticationConfiguration = authenticationConfiguration;
+        this.managementPort = managementPort;
     }
 
 
@@ -34,7 +39,15 @@ public class SecurityConfig {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(authorize -> authorize
+                        // Async dispatches (e.g. the streaming user export) resume requests that were already authorized.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers("/api/v1/auth/logout").authenticated()
                         .requestMatchers("/api/v1/auth/**").permitAll()
+                        .requestMatchers("/.well-known/jwks.json").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        // Scrapes are only open on the management port, which is not published; elsewhere they need ADMIN.
+                        .requestMatchers(request -> managementPort > 0 && request.getLocalPort() == managementPort).permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers(
                                 "/swagger-ui/**",
                                 "/v3/api-docs/**",
@@ -0,0 +1,105 @@
+package com.nasor.roleauthapi.infraestructure.config;
+
+import com.nasor.roleauthapi.infraestructure.observability.ServerTiming;
+import com.nasor.roleauthapi.infraestructure.observability.ServerTimingDataSource;
+import com.nasor.roleauthapi.infraestructure.observability.ServerTimingFilter;
+import com.nasor.roleauthapi.infraestructure.observability.ServerTimingJsonConverter;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authorization.AuthorizationObservationContext;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Opt-in {@code Server-Timing} header for latency triage. Nothing here is registered unless
+ * {@code app.server-timing.enabled=true}; the phase probes in the security code then stay idle.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.server-timing.enabled", havingValue = "true")
+public class ServerTimingConfig implements WebMvcConfigurer {
+    private static final String AUTHORIZATION_STARTED_AT = ServerTimingConfig.class.getName() + ".authorizationStartedAt";
+
+    // Outermost, so the authentication filters are timed too.
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter() {
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(new ServerTimingFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public static BeanPostProcessor serverTimingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof ServerTimingDataSource)
+                        ? new ServerTimingDataSource(dataSource)
+                        : bean;
+            }
+        };
+    }
+
+    // Spring Security observes both the request rules and @PreAuthorize checks.
+    @Bean
+    public ObservationHandler<Observation.Context> serverTimingAuthorizationHandler() {
+        return new ObservationHandler<>() {
+            @Override
+            public void onStart(@NonNull Observation.Context context) {
+                context.put(AUTHORIZATION_STARTED_AT, ServerTiming.start());
+            }
+
+            @Override
+            public void onStop(@NonNull Observation.Context context) {
+                Long startedAt = context.get(AUTHORIZATION_STARTED_AT);
+                if (startedAt != null) {
+                    ServerTiming.record(ServerTiming.Phase.AUTHZ, startedAt);
+                }
+            }
+
+            @Override
+            public boolean supportsContext(@NonNull Observation.Context context) {
+                return context instanceof AuthorizationObservationContext<?>;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                     @NonNull Object handler) {
+                ServerTiming.handlerStarted();
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                        @NonNull Object handler, Exception ex) {
+                ServerTiming.handlerCompleted();
+            }
+        });
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.replaceAll(converter -> converter instanceof MappingJackson2HttpMessageConverter jackson
+                ? new ServerTimingJsonConverter(jackson.getObjectMapper())
+                : converter);
+    }
+}
@@ -1,8 +1,13 @@
 package com.nasor.roleauthapi.infraestructure.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nasor.roleauthapi.application.UserService;
+import com.nasor.roleauthapi.application.dto.CacheStatsDto;
+import com.nasor.roleauthapi.application.dto.UserPageResponseDto;
 import com.nasor.roleauthapi.application.dto.UserResponseDto;
 import com.nasor.roleauthapi.domain.Role;
+import com.nasor.roleauthapi.infraestructure.security.UserDetailsCache;
+import com.nasor.roleauthapi.infraestructure.security.VerifiedTokenCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,10 +17,24 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -25,27 +44,121 @@ import java.util.List;
 @SecurityRequirement(name = "bearerAuth")
 public class AdminController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
     private final UserService userService;
+    private final UserDetailsCache userDetailsCache;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final ObjectMapper objectMapper;
+    private final Duration exportTimeout;
 
-    public AdminController(UserService userService) {
+    public AdminController(UserService userService, UserDetailsCache userDetailsCache,
+                           VerifiedTokenCache verifiedTokenCache, ObjectMapper objectMapper,
+                           @Value("${app.export.timeout:PT30M}") Duration exportTimeout) {
         this.userService = userService;
+        this.userDetailsCache = userDetailsCache;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.objectMapper = objectMapper;
+        this.exportTimeout = exportTimeout;
     }
 
-    @Operation(summary = "Get all users", description = "Allows an ADMIN to view the complete list of registered users in the system.")
+    @Operation(summary = "List users", description = "Allows an ADMIN to page through registered users ordered by ID, optionally filtered by role and username prefix. Pass the returned nextCursor to get the following page.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "List of users retrieved successfully.",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserResponseDto.class))),
+            @ApiResponse(responseCode = "200", description = "Page of users retrieved successfully.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserPageResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request: Invalid cursor, limit or role.",
+                    content = @Content(mediaType = "text/plain")),
             @ApiResponse(responseCode = "401", description = "Unauthorized: Authentication required or invalid token.",
                     content = @Content(mediaType = "text/plain")),
             @ApiResponse(responseCode = "403", description = "Forbidden: User does not have ADMIN role.",
                     content = @Content(mediaType = "text/plain"))
     })
     @GetMapping("/users")
-    public ResponseEntity<List<UserResponseDto>> getAllUsers() {
-        List<UserResponseDto> users = userService.findAllUsers();
+    public ResponseEntity<UserPageResponseDto> getAllUsers(
+            @Parameter(description = "ID of the last user of the previous page.", example = "150")
+            @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Maximum number of users to return (1-500).", example = "50")
+            @RequestParam(defaultValue = "50") int limit,
+            @Parameter(description = "Only return users with this role.", example = "USER")
+            @RequestParam(required = false) Role role,
+            @Parameter(description = "Only return users whose username starts with this value.", example = "pao")
+            @RequestParam(required = false) String usernamePrefix)
+    {
+        UserPageResponseDto users = userService.findUsers(cursor, limit, role, usernamePrefix);
         return ResponseEntity.ok(users);
     }
 
+    @Operation(summary = "Export all users", description = "Allows an ADMIN to stream every registered user as NDJSON (one JSON object per line) or CSV. Rows are written as they are read from the database, so memory use does not grow with the number of users.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Users streamed successfully.",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}),
+            @ApiResponse(responseCode = "400", description = "Bad Request: Unsupported export format.",
+                    content = @Content(mediaType = "text/plain")),
+            @ApiResponse(responseCode = "401", description = "Unauthorized: Authentication required or invalid token.",
+                    content = @Content(mediaType = "text/plain")),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User does not have ADMIN role.",
+                    content = @Content(mediaType = "text/plain"))
+    })
+    @GetMapping("/users/export")
+    public WebAsyncTask<Void> exportUsers(
+            @Parameter(description = "Export format: ndjson or csv.", example = "ndjson")
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response)
+    {
+        boolean csv;
+        if ("csv".equalsIgnoreCase(format)) {
+            csv = true;
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            csv = false;
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+
+        // The timeout applies to this export only. It bounds how long a slow client can keep the export's
+        // database connection and read-only transaction open: once it fires, the next write fails and the
+        // cursor is closed.
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            response.setContentType((csv ? CSV : NDJSON).toString());
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + (csv ? "csv" : "ndjson") + "\"");
+            Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+            if (csv) {
+                writer.write("id,username,fullName,role\n");
+                writer.flush();
+            }
+            boolean[] firstRow = {true};
+            userService.exportUsers(user -> {
+                try {
+                    writer.write(csv ? toCsvLine(user) : objectMapper.writeValueAsString(user) + "\n");
+                    if (firstRow[0]) {
+                        // Hand the first row to the client right away instead of waiting for a full buffer.
+                        writer.flush();
+                        firstRow[0] = false;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            return null;
+        });
+    }
+
+    private static String toCsvLine(UserResponseDto user) {
+        return user.id() + "," + csvField(user.username()) + "," + csvField(user.fullName()) + "," + user.role() + "\n";
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
     @Operation(summary = "Update a user's role", description = "Allows an ADMIN to change another user's role (e.g., from USER to ADMIN, or vice versa).")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User role updated successfully.",
@@ -78,4 +191,18 @@ public class AdminController {
         UserResponseDto updatedUser = userService.updateRole(id, roleEnum);
         return ResponseEntity.ok(updatedUser);
     }
+
+    @Operation(summary = "Get cache statistics", description = "Allows an ADMIN to inspect hit, miss and eviction counters of the authentication caches.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cache statistics retrieved successfully.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CacheStatsDto.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized: Authentication required or invalid token.",
+                    content = @Content(mediaType = "text/plain")),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User does not have ADMIN role.",
+                    content = @Content(mediaType = "text/plain"))
+    })
+    @GetMapping("/cache-stats")
+    public ResponseEntity<List<CacheStatsDto>> getCacheStats() {
+        return ResponseEntity.ok(List.of(userDetailsCache.stats(), verifiedTokenCache.stats()));
+    }
 }
\ No newline at end of file
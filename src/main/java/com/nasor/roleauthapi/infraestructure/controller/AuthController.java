@@ -5,6 +5,7 @@ import com.nasor.roleauthapi.application.dto.AuthResponseDto;
 import com.nasor.roleauthapi.application.dto.LoginRequestDto;
 import com.nasor.roleauthapi.application.dto.RefreshTokenRequestDto;
 import com.nasor.roleauthapi.application.dto.RegisterRequestDto;
+import com.nasor.roleauthapi.infraestructure.security.LoginThrottle;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -12,7 +13,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirements;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,9 +26,11 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final LoginThrottle loginThrottle;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, LoginThrottle loginThrottle) {
         this.authService = authService;
+        this.loginThrottle = loginThrottle;
     }
 
     @Operation(summary = "Register a new user", description = "Allows a new user to register in the system with a default role (USER).")
@@ -49,11 +54,15 @@ public class AuthController {
             @ApiResponse(responseCode = "200", description = "Login successful and tokens generated.",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = AuthResponseDto.class))),
             @ApiResponse(responseCode = "401", description = "Invalid credentials (username or password).",
+                    content = @Content(mediaType = "text/plain")),
+            @ApiResponse(responseCode = "429", description = "Too many login attempts for this username or client IP; see Retry-After.",
                     content = @Content(mediaType = "text/plain"))
     })
     @PostMapping("/login")
     @SecurityRequirements
-    public ResponseEntity<AuthResponseDto> login(@Valid @RequestBody LoginRequestDto request) {
+    public ResponseEntity<AuthResponseDto> login(@Valid @RequestBody LoginRequestDto request, HttpServletRequest httpRequest) {
+        // Before authentication, so throttled attempts never reach password hashing.
+        loginThrottle.check(request.username(), httpRequest.getRemoteAddr());
         AuthResponseDto response = authService.login(request);
         return ResponseEntity.ok(response);
     }
@@ -75,4 +84,16 @@ public class AuthController {
         AuthResponseDto response = authService.refreshToken(request.refreshToken());
         return ResponseEntity.ok(response);
     }
+
+    @Operation(summary = "Logout", description = "Revokes the Access Token used to call this endpoint, so it is rejected from now on even before it expires. Refresh Tokens are not affected.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Access Token revoked."),
+            @ApiResponse(responseCode = "401", description = "Unauthorized: Authentication required or invalid token.",
+                    content = @Content(mediaType = "text/plain"))
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        authService.logout(authorization.substring(7));
+        return ResponseEntity.noContent().build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.nasor.roleauthapi.infraestructure.controller;
+
+import com.nasor.roleauthapi.infraestructure.security.JwtKeyRing;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirements;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/.well-known")
+@Tag(name = "Key Discovery", description = "Public keys for verifying access tokens without calling this API.")
+public class JwksController {
+
+    private final Map<String, List<Map<String, Object>>> jwks;
+
+    public JwksController(JwtKeyRing keyRing) {
+        this.jwks = Map.of("keys", keyRing.getJwks());
+    }
+
+    @Operation(summary = "Get JSON Web Key Set", description = "Returns the public keys of the access token key ring. Empty when tokens are signed with a shared HS256 secret.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Key set retrieved successfully.",
+                    content = @Content(mediaType = "application/json"))
+    })
+    @GetMapping("/jwks.json")
+    @SecurityRequirements
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(15)).cachePublic())
+                .body(jwks);
+    }
+}
@@ -1,5 +1,6 @@
 package com.nasor.roleauthapi.infraestructure.controller;
 
+import com.nasor.roleauthapi.application.AuthService;
 import com.nasor.roleauthapi.application.UserService;
 import com.nasor.roleauthapi.application.dto.RegisterRequestDto;
 import com.nasor.roleauthapi.application.dto.UserResponseDto;
@@ -23,9 +24,11 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserService userService;
+    private final AuthService authService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, AuthService authService) {
         this.userService = userService;
+        this.authService = authService;
     }
 
     @Operation(summary = "Get user by ID", description = "Retrieves details for a specific user. Accessible by ADMIN or the user itself.")
@@ -77,4 +80,22 @@ public class UserController {
         UserResponseDto updatedUser = userService.update(id, request);
         return ResponseEntity.ok(updatedUser);
     }
+
+    @Operation(summary = "Revoke all sessions", description = "Revokes every refresh token of a user, signing them out on all devices. Access tokens already issued stay valid until they expire. Accessible by ADMIN or the user itself.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "All sessions revoked."),
+            @ApiResponse(responseCode = "401", description = "Unauthorized: Authentication required or invalid token.",
+                    content = @Content(mediaType = "text/plain")),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User does not have ADMIN role and is not the requested user.",
+                    content = @Content(mediaType = "text/plain"))
+    })
+    @DeleteMapping("/{id}/sessions")
+    @PreAuthorize("hasRole('ADMIN') or #id == authentication.principal.id")
+    public ResponseEntity<Void> revokeAllSessions(
+            @Parameter(description = "ID of the user whose sessions are revoked.", required = true, example = "1")
+            @PathVariable Long id)
+    {
+        authService.revokeAllSessions(id);
+        return ResponseEntity.noContent().build();
+    }
 }
\ No newline at end of file
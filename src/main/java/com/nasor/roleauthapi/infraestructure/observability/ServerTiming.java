@@ -0,0 +1,111 @@
+package com.nasor.roleauthapi.infraestructure.observability;
+
+import java.util.Locale;
+
+/**
+ * Per-request phase durations reported in the {@code Server-Timing} response header.
+ * Collection is bound to the request thread by {@link ServerTimingFilter}; when that filter is not
+ * installed, {@link #start()} is a single thread-local read and {@link #record} returns immediately.
+ * {@code app} is the handler time left once the database, authorization and serialization time
+ * spent inside the handler is taken out.
+ */
+public final class ServerTiming {
+    public enum Phase {
+        JWT("jwt"), PRINCIPAL("principal"), AUTHZ("authz"), APP("app"), DB("db"), SERIALIZE("serialize");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startedAt = System.nanoTime();
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private long handlerStartedAt;
+    private long nestedNanosAtHandlerStart;
+    private boolean handlerCompleted;
+
+    private ServerTiming() {
+    }
+
+    static ServerTiming begin() {
+        ServerTiming timing = new ServerTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Returns the start of a phase, or {@code 0} when this request is not being timed.
+     */
+    public static long start() {
+        return CURRENT.get() != null ? System.nanoTime() : 0L;
+    }
+
+    public static void record(Phase phase, long startedAt) {
+        if (startedAt == 0L) {
+            return;
+        }
+        ServerTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.phaseNanos[phase.ordinal()] += System.nanoTime() - startedAt;
+        }
+    }
+
+    public static void handlerStarted() {
+        ServerTiming timing = CURRENT.get();
+        if (timing != null && timing.handlerStartedAt == 0L) {
+            timing.handlerStartedAt = System.nanoTime();
+            timing.nestedNanosAtHandlerStart = timing.nestedNanos();
+        }
+    }
+
+    public static void handlerCompleted() {
+        ServerTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.completeHandler();
+        }
+    }
+
+    // Called when the response commits, which for JSON bodies happens before the handler returns.
+    String header() {
+        completeHandler();
+        StringBuilder header = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            long nanos = phaseNanos[phase.ordinal()];
+            if (nanos > 0) {
+                appendMetric(header, phase.metricName, nanos);
+            }
+        }
+        appendMetric(header, "total", System.nanoTime() - startedAt);
+        return header.toString();
+    }
+
+    private void completeHandler() {
+        if (handlerStartedAt == 0L || handlerCompleted) {
+            return;
+        }
+        handlerCompleted = true;
+        long handlerNanos = System.nanoTime() - handlerStartedAt;
+        long nestedNanos = nestedNanos() - nestedNanosAtHandlerStart;
+        phaseNanos[Phase.APP.ordinal()] = Math.max(0L, handlerNanos - nestedNanos);
+    }
+
+    private long nestedNanos() {
+        return phaseNanos[Phase.DB.ordinal()] + phaseNanos[Phase.AUTHZ.ordinal()]
+                + phaseNanos[Phase.SERIALIZE.ordinal()];
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0));
+    }
+}
@@ -0,0 +1,58 @@
+package com.nasor.roleauthapi.infraestructure.observability;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Times the request on the current thread and adds the {@code Server-Timing} header just before the
+ * response commits, so it is present even when the body has already started streaming out.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+    static final String HEADER = "Server-Timing";
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        TimedResponse timedResponse = new TimedResponse(response, ServerTiming.begin());
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            if (!response.isCommitted()) {
+                timedResponse.writeHeader();
+            }
+            ServerTiming.end();
+        }
+    }
+
+    private static final class TimedResponse extends OnCommittedResponseWrapper {
+        private final ServerTiming timing;
+        private boolean headerWritten;
+
+        TimedResponse(HttpServletResponse response, ServerTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeader();
+        }
+
+        void writeHeader() {
+            if (!headerWritten) {
+                headerWritten = true;
+                ((HttpServletResponse) getResponse()).setHeader(HEADER, timing.header());
+            }
+        }
+    }
+}
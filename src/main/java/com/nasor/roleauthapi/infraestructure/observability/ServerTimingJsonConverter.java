@@ -0,0 +1,49 @@
+package com.nasor.roleauthapi.infraestructure.observability;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Serializes into memory first, so the {@code serialize} phase is known before the first byte
+ * commits the response and the Server-Timing header can still include it.
+ */
+public class ServerTimingJsonConverter extends MappingJackson2HttpMessageConverter {
+
+    public ServerTimingJsonConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(@NonNull Object object, Type type, @NonNull HttpOutputMessage outputMessage)
+            throws IOException {
+        long startedAt = ServerTiming.start();
+        if (startedAt == 0L) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        super.writeInternal(object, type, new HttpOutputMessage() {
+            @Override
+            @NonNull
+            public OutputStream getBody() {
+                return body;
+            }
+
+            @Override
+            @NonNull
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        });
+        ServerTiming.record(ServerTiming.Phase.SERIALIZE, startedAt);
+        body.writeTo(outputMessage.getBody());
+    }
+}
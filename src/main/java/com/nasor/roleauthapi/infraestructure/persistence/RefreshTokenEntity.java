@@ -4,9 +4,13 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.Instant;
+import java.util.UUID;
 
 @Entity
-@Table(name = "refresh_tokens")
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_expiry_date", columnList = "expiryDate"),
+        @Index(name = "idx_refresh_tokens_user_family", columnList = "user_id, family_id", unique = true)
+})
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,11 +20,20 @@ public class RefreshTokenEntity {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
-    private String token;
+    // SHA-256 of the client token; looked up through a hash index created by RefreshTokenHashMigration.
+    @Column(name = "token_hash", columnDefinition = "bytea")
+    private byte[] tokenHash;
 
-    @OneToOne
-    @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false, unique = true)
+    // Digest of the token this one replaced, kept to detect reuse of a rotated-away token.
+    @Column(name = "previous_token_hash", columnDefinition = "bytea")
+    private byte[] previousTokenHash;
+
+    // Nullable in the mapping only so the column can be added to existing rows; RefreshTokenFamilyMigration backfills it.
+    @Column(name = "family_id")
+    private UUID familyId;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
     private UserEntity user;
 
     @Column(nullable = false)
@@ -0,0 +1,25 @@
+package com.nasor.roleauthapi.infraestructure.persistence;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "revoked_access_tokens", indexes = {
+        @Index(name = "idx_revoked_access_tokens_expires_at", columnList = "expiresAt")
+})
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedAccessTokenEntity {
+    // The jti claim of the revoked access token.
+    @Id
+    @Column(name = "token_id", length = 64)
+    private String tokenId;
+
+    // Expiry of the revoked token; past it the token is rejected anyway, so the row can go.
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,150 @@
+package com.nasor.roleauthapi.infraestructure.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Purges expired refresh tokens in small batches so no single delete holds locks or bloats WAL for long.
+ * A session-level advisory lock keeps the job on one node at a time; other nodes skip the run.
+ * Runs on its own scheduler thread, since a run with pauses can take seconds and would otherwise hold
+ * up the other scheduled jobs on Spring's single-threaded default scheduler.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.refresh-token.store", havingValue = "jpa", matchIfMissing = true)
+public class ExpiredRefreshTokenReaper implements InitializingBean, DisposableBean {
+    // Arbitrary application-wide key for pg_try_advisory_lock.
+    private static final long ADVISORY_LOCK_KEY = 0x52544b5245415052L;
+    private static final String DELETE_BATCH_SQL = """
+            DELETE FROM refresh_tokens
+            WHERE id IN (
+                SELECT id FROM refresh_tokens
+                WHERE expiry_date < now()
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration pauseBetweenBatches;
+    private final Duration initialDelay;
+    private final Duration interval;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    private final Counter purgedCounter;
+    private final Timer runTimer;
+
+    public ExpiredRefreshTokenReaper(JdbcTemplate jdbcTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.refresh-token.reaper.enabled:true}") boolean enabled,
+                                     @Value("${app.refresh-token.reaper.batch-size:1000}") int batchSize,
+                                     @Value("${app.refresh-token.reaper.max-batches-per-run:100}") int maxBatchesPerRun,
+                                     @Value("${app.refresh-token.reaper.pause-between-batches:PT0.1S}") Duration pauseBetweenBatches,
+                                     @Value("${app.refresh-token.reaper.initial-delay:PT1M}") Duration initialDelay,
+                                     @Value("${app.refresh-token.reaper.interval:PT10M}") Duration interval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pauseBetweenBatches = pauseBetweenBatches;
+        this.initialDelay = initialDelay;
+        this.interval = interval;
+        this.purgedCounter = Counter.builder("auth.refresh_tokens.reaped")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("auth.refresh_tokens.reaper")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("refresh-token-reaper-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::reap, Instant.now().plus(initialDelay), interval);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+    }
+
+    public void reap() {
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        Integer purged = jdbcTemplate.execute((ConnectionCallback<Integer>) this::reapWithLock);
+        if (purged == null || purged < 0) {
+            log.debug("Refresh token reaper is running on another node, skipping");
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        purgedCounter.increment(purged);
+        if (purged > 0) {
+            log.info("Purged {} expired refresh tokens in {} ms", purged, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+    }
+
+    // Returns -1 when another node holds the lock. Each batch commits on its own (auto-commit).
+    private int reapWithLock(Connection connection) throws SQLException {
+        if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+            return -1;
+        }
+        int purged = 0;
+        try (PreparedStatement delete = connection.prepareStatement(DELETE_BATCH_SQL)) {
+            delete.setInt(1, batchSize);
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                int deleted = delete.executeUpdate();
+                purged += deleted;
+                if (deleted < batchSize || !pause()) {
+                    break;
+                }
+            }
+        } finally {
+            advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+        }
+        return purged;
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseBetweenBatches.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.nasor.roleauthapi.infraestructure.repository;
+
+import com.nasor.roleauthapi.domain.RefreshToken;
+import com.nasor.roleauthapi.domain.RefreshTokenRepository;
+import com.nasor.roleauthapi.domain.UserRepository;
+import com.nasor.roleauthapi.infraestructure.security.RefreshTokenCodec;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Refresh token store kept in process memory, for single-node or sticky deployments.
+ * Current tokens are keyed by their SHA-256 digest across a fixed number of shards. A per-user map of
+ * families serializes writes for the same user, and a second index maps each family's rotated-away token
+ * to the family for reuse detection. Expired entries are swept on a schedule. When a file is configured,
+ * every change is appended to a log that is periodically folded into a snapshot, so tokens survive restarts.
+ */
+@Component
+@ConditionalOnProperty(name = "app.refresh-token.store", havingValue = "memory")
+public class InMemoryRefreshTokenRepository implements RefreshTokenRepository, DisposableBean {
+    private static final Base64.Encoder KEY_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    record StoredToken(long id, String tokenHash, long userId, UUID familyId, String previousTokenHash,
+                       Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+
+    private final List<ConcurrentHashMap<String, StoredToken>> shards;
+    // Inner maps are only touched inside compute() for their user, which acts as the per-user lock.
+    private final ConcurrentHashMap<Long, Map<UUID, StoredToken>> familiesByUserId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, StoredToken> familyByPreviousTokenHash = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final UserRepository userRepository;
+    private final RefreshTokenCodec refreshTokenCodec;
+    private final RefreshTokenJournal journal;
+
+    public InMemoryRefreshTokenRepository(UserRepository userRepository,
+                                          RefreshTokenCodec refreshTokenCodec,
+                                          @Value("${app.refresh-token.memory.shards:16}") int shardCount,
+                                          @Value("${app.refresh-token.memory.file:}") String file,
+                                          @Value("${app.refresh-token.memory.compact-after-records:10000}") int compactAfterRecords) {
+        this.userRepository = userRepository;
+        this.refreshTokenCodec = refreshTokenCodec;
+        this.shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ConcurrentHashMap<>());
+        }
+        if (file == null || file.isBlank()) {
+            this.journal = null;
+        } else {
+            this.journal = new RefreshTokenJournal(Path.of(file), compactAfterRecords);
+            journal.replay(stored -> {
+                put(stored, false);
+                ids.accumulateAndGet(stored.id(), Math::max);
+            }, this::removeByTokenHash);
+            removeExpired(Instant.now());
+            journal.open(storedTokens());
+        }
+    }
+
+    @Override
+    public Optional<RefreshToken> findByToken(String token) {
+        String tokenHash = hash(token);
+        return Optional.ofNullable(shard(tokenHash).get(tokenHash))
+                .flatMap(stored -> toDomainRefreshToken(stored, token));
+    }
+
+    @Override
+    public RefreshToken save(RefreshToken refreshToken) {
+        long id = refreshToken.getId() != null ? refreshToken.getId() : ids.incrementAndGet();
+        put(new StoredToken(id, hash(refreshToken.getToken()), refreshToken.getUser().getId(),
+                refreshToken.getFamilyId(), null, refreshToken.getExpiresAt()), true);
+        return RefreshToken.builder()
+                .id(id)
+                .token(refreshToken.getToken())
+                .familyId(refreshToken.getFamilyId())
+                .user(refreshToken.getUser())
+                .expiresAt(refreshToken.getExpiresAt())
+                .build();
+    }
+
+    @Override
+    public void delete(RefreshToken refreshToken) {
+        familiesByUserId.computeIfPresent(refreshToken.getUser().getId(), (userId, families) -> {
+            StoredToken stored = families.get(refreshToken.getFamilyId());
+            if (stored != null && Objects.equals(stored.id(), refreshToken.getId())) {
+                removeFamily(families, stored, true);
+            }
+            return families.isEmpty() ? null : families;
+        });
+    }
+
+    @Override
+    public void deleteByUserId(Long userId) {
+        familiesByUserId.computeIfPresent(userId, (id, families) -> {
+            for (StoredToken stored : List.copyOf(families.values())) {
+                removeFamily(families, stored, true);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<RefreshToken> rotate(String currentToken, String newToken, Instant newExpiresAt) {
+        String currentHash = hash(currentToken);
+        ConcurrentHashMap<String, StoredToken> currentShard = shard(currentHash);
+        StoredToken current = currentShard.get(currentHash);
+        if (current == null || current.isExpired(Instant.now())) {
+            return Optional.empty();
+        }
+        StoredToken rotated = new StoredToken(current.id(), hash(newToken), current.userId(), current.familyId(),
+                currentHash, newExpiresAt);
+        boolean[] won = {false};
+        // Replacing the exact entry under the user's lock lets only one concurrent rotation through.
+        familiesByUserId.computeIfPresent(current.userId(), (userId, families) -> {
+            if (families.get(current.familyId()) == current) {
+                removeFamily(families, current, false);
+                put(families, rotated);
+                appendPut(rotated);
+                won[0] = true;
+            }
+            return families;
+        });
+        return won[0] ? toDomainRefreshToken(rotated, newToken) : Optional.empty();
+    }
+
+    @Override
+    public boolean revokeFamilyOfReusedToken(String token) {
+        String tokenHash = hash(token);
+        StoredToken family = familyByPreviousTokenHash.get(tokenHash);
+        if (family == null) {
+            return false;
+        }
+        boolean[] revoked = {false};
+        familiesByUserId.computeIfPresent(family.userId(), (userId, families) -> {
+            StoredToken stored = families.get(family.familyId());
+            if (stored != null && tokenHash.equals(stored.previousTokenHash())) {
+                removeFamily(families, stored, true);
+                revoked[0] = true;
+            }
+            return families.isEmpty() ? null : families;
+        });
+        return revoked[0];
+    }
+
+    @Override
+    public void deleteFamiliesBeyond(Long userId, int familiesToKeep) {
+        familiesByUserId.computeIfPresent(userId, (id, families) -> {
+            if (families.size() > familiesToKeep) {
+                families.values().stream()
+                        .sorted(Comparator.comparing(StoredToken::expiresAt).thenComparingLong(StoredToken::id).reversed())
+                        .skip(familiesToKeep)
+                        .toList()
+                        .forEach(stored -> removeFamily(families, stored, true));
+            }
+            return families.isEmpty() ? null : families;
+        });
+    }
+
+    @Scheduled(initialDelayString = "${app.refresh-token.memory.sweep-interval:PT1M}",
+            fixedDelayString = "${app.refresh-token.memory.sweep-interval:PT1M}")
+    public void sweep() {
+        removeExpired(Instant.now());
+        if (journal != null && journal.needsCompaction()) {
+            journal.compact(storedTokens());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    // Not journaled: expired entries are dropped again on replay.
+    private void removeExpired(Instant now) {
+        for (ConcurrentHashMap<String, StoredToken> shard : shards) {
+            for (StoredToken stored : shard.values()) {
+                if (stored.isExpired(now)) {
+                    familiesByUserId.computeIfPresent(stored.userId(), (userId, families) -> {
+                        if (families.get(stored.familyId()) == stored) {
+                            removeFamily(families, stored, false);
+                        }
+                        return families.isEmpty() ? null : families;
+                    });
+                }
+            }
+        }
+    }
+
+    // A token for an existing family replaces that family's current token.
+    private void put(StoredToken stored, boolean journaled) {
+        familiesByUserId.compute(stored.userId(), (userId, families) -> {
+            Map<UUID, StoredToken> userFamilies = families != null ? families : new HashMap<>();
+            StoredToken previous = userFamilies.get(stored.familyId());
+            if (previous != null) {
+                removeFamily(userFamilies, previous, false);
+            }
+            put(userFamilies, stored);
+            if (journaled) {
+                appendPut(stored);
+            }
+            return userFamilies;
+        });
+    }
+
+    private void put(Map<UUID, StoredToken> families, StoredToken stored) {
+        families.put(stored.familyId(), stored);
+        shard(stored.tokenHash()).put(stored.tokenHash(), stored);
+        if (stored.previousTokenHash() != null) {
+            familyByPreviousTokenHash.put(stored.previousTokenHash(), stored);
+        }
+    }
+
+    private void removeFamily(Map<UUID, StoredToken> families, StoredToken stored, boolean journaled) {
+        families.remove(stored.familyId());
+        shard(stored.tokenHash()).remove(stored.tokenHash(), stored);
+        if (stored.previousTokenHash() != null) {
+            familyByPreviousTokenHash.remove(stored.previousTokenHash(), stored);
+        }
+        if (journaled && journal != null) {
+            journal.appendRemove(stored.tokenHash());
+        }
+    }
+
+    private void removeByTokenHash(String tokenHash) {
+        StoredToken stored = shard(tokenHash).get(tokenHash);
+        if (stored != null) {
+            familiesByUserId.computeIfPresent(stored.userId(), (userId, families) -> {
+                removeFamily(families, stored, false);
+                return families.isEmpty() ? null : families;
+            });
+        }
+    }
+
+    private void appendPut(StoredToken stored) {
+        if (journal != null) {
+            journal.appendPut(stored);
+        }
+    }
+
+    // Lazy, so entries are read only once the journal has switched to a fresh log.
+    private Stream<StoredToken> storedTokens() {
+        return shards.stream().flatMap(shard -> shard.values().stream());
+    }
+
+    private Optional<RefreshToken> toDomainRefreshToken(StoredToken stored, String token) {
+        return userRepository.findById(stored.userId())
+                .map(user -> RefreshToken.builder()
+                        .id(stored.id())
+                        .token(token)
+                        .familyId(stored.familyId())
+                        .user(user)
+                        .expiresAt(stored.expiresAt())
+                        .build());
+    }
+
+    private ConcurrentHashMap<String, StoredToken> shard(String tokenHash) {
+        return shards.get(Math.floorMod(tokenHash.hashCode(), shards.size()));
+    }
+
+    private String hash(String token) {
+        return KEY_ENCODER.encodeToString(refreshTokenCodec.hash(token));
+    }
+}
@@ -0,0 +1,51 @@
+package com.nasor.roleauthapi.infraestructure.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns the one-token-per-user table into one row per token family.
+ * Drops the old unique constraint on {@code user_id}, gives existing rows a family of their own and
+ * indexes {@code previous_token_hash} for reuse detection. Every step is a no-op once applied.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.refresh-token.store", havingValue = "jpa", matchIfMissing = true)
+public class RefreshTokenFamilyMigration implements InitializingBean {
+    private static final String USER_UNIQUE_CONSTRAINTS_SQL = """
+            SELECT con.conname
+            FROM pg_constraint con
+            JOIN pg_class rel ON rel.oid = con.conrelid
+            JOIN pg_attribute att ON att.attrelid = rel.oid AND att.attnum = con.conkey[1]
+            WHERE rel.relname = 'refresh_tokens' AND rel.relnamespace = current_schema()::regnamespace
+              AND con.contype = 'u' AND cardinality(con.conkey) = 1 AND att.attname = 'user_id'
+            """;
+    private static final String BACKFILL_FAMILY_SQL =
+            "UPDATE refresh_tokens SET family_id = gen_random_uuid() WHERE family_id IS NULL";
+    private static final String PREVIOUS_HASH_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_refresh_tokens_previous_token_hash ON refresh_tokens USING hash (previous_token_hash)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The EntityManagerFactory dependency only orders this after schema update.
+    public RefreshTokenFamilyMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (String constraint : jdbcTemplate.queryForList(USER_UNIQUE_CONSTRAINTS_SQL, String.class)) {
+            jdbcTemplate.execute("ALTER TABLE refresh_tokens DROP CONSTRAINT \"" + constraint.replace("\"", "\"\"") + "\"");
+            log.info("Dropped unique constraint {} on refresh_tokens.user_id", constraint);
+        }
+        jdbcTemplate.update(BACKFILL_FAMILY_SQL);
+        // Rows inserted by nodes that predate families still get one.
+        jdbcTemplate.execute("ALTER TABLE refresh_tokens ALTER COLUMN family_id SET DEFAULT gen_random_uuid()");
+        jdbcTemplate.execute("ALTER TABLE refresh_tokens ALTER COLUMN family_id SET NOT NULL");
+        jdbcTemplate.execute(PREVIOUS_HASH_INDEX_SQL);
+    }
+}
@@ -0,0 +1,77 @@
+package com.nasor.roleauthapi.infraestructure.repository;
+
+import com.nasor.roleauthapi.infraestructure.security.RefreshTokenCodec;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves refresh tokens from the legacy raw {@code token} column to {@code token_hash}.
+ * Runs after Hibernate has added the new column and before the web server starts taking requests.
+ * While the window is open, a raw row written later (e.g. by a node still on the old version) is
+ * hashed the first time its token is presented. Once closed, the legacy column can be dropped.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.refresh-token.store", havingValue = "jpa", matchIfMissing = true)
+public class RefreshTokenHashMigration implements InitializingBean {
+    private static final String LEGACY_COLUMN_SQL = """
+            SELECT count(*) FROM information_schema.columns
+            WHERE table_schema = current_schema() AND table_name = 'refresh_tokens' AND column_name = 'token'
+            """;
+    private static final String BACKFILL_SQL = """
+            UPDATE refresh_tokens SET token_hash = sha256(convert_to(token, 'UTF8')), token = NULL
+            WHERE token_hash IS NULL AND token IS NOT NULL
+            """;
+    private static final String MIGRATE_ONE_SQL =
+            "UPDATE refresh_tokens SET token_hash = ?, token = NULL WHERE token = ? AND token_hash IS NULL";
+    private static final String HASH_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_refresh_tokens_token_hash ON refresh_tokens USING hash (token_hash)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RefreshTokenCodec refreshTokenCodec;
+    private final boolean migrationWindowOpen;
+    private volatile boolean legacyColumnPresent;
+
+    // The EntityManagerFactory dependency only orders this after schema update.
+    public RefreshTokenHashMigration(JdbcTemplate jdbcTemplate,
+                                     RefreshTokenCodec refreshTokenCodec,
+                                     EntityManagerFactory entityManagerFactory,
+                                     @Value("${app.refresh-token.legacy-migration-window:true}") boolean migrationWindowOpen) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshTokenCodec = refreshTokenCodec;
+        this.migrationWindowOpen = migrationWindowOpen;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.execute(HASH_INDEX_SQL);
+        Integer legacyColumns = jdbcTemplate.queryForObject(LEGACY_COLUMN_SQL, Integer.class);
+        legacyColumnPresent = legacyColumns != null && legacyColumns > 0;
+        if (!legacyColumnPresent) {
+            return;
+        }
+        // New rows no longer carry the raw token.
+        jdbcTemplate.execute("ALTER TABLE refresh_tokens ALTER COLUMN token DROP NOT NULL");
+        int migrated = jdbcTemplate.update(BACKFILL_SQL);
+        if (migrated > 0) {
+            log.info("Hashed {} legacy refresh tokens", migrated);
+        }
+    }
+
+    /**
+     * Hashes a raw token row that is still in the legacy column.
+     *
+     * @return true if a row was migrated and a lookup by hash is worth retrying
+     */
+    public boolean migrate(String token) {
+        if (!migrationWindowOpen || !legacyColumnPresent) {
+            return false;
+        }
+        return jdbcTemplate.update(MIGRATE_ONE_SQL, refreshTokenCodec.hash(token), token) > 0;
+    }
+}
@@ -0,0 +1,169 @@
+package com.nasor.roleauthapi.infraestructure.repository;
+
+import com.nasor.roleauthapi.infraestructure.repository.InMemoryRefreshTokenRepository.StoredToken;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Snapshot plus append-only log behind {@link InMemoryRefreshTokenRepository}.
+ * Records are one line each: {@code P id tokenHash userId familyId previousTokenHash expiresAtMillis} puts a
+ * family's current token ({@code -} when there is no previous token), {@code R tokenHash} removes its family.
+ * Compaction first switches appends to a fresh log and only then writes the snapshot, so replaying
+ * snapshot, retired log and current log in that order always rebuilds the latest state.
+ */
+@Slf4j
+final class RefreshTokenJournal {
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final Path retiredLogFile;
+    private final int compactAfterRecords;
+    private BufferedWriter logWriter;
+    private int recordsSinceCompaction;
+
+    RefreshTokenJournal(Path file, int compactAfterRecords) {
+        this.snapshotFile = file;
+        this.logFile = file.resolveSibling(file.getFileName() + ".log");
+        this.retiredLogFile = file.resolveSibling(file.getFileName() + ".log.old");
+        this.compactAfterRecords = compactAfterRecords;
+    }
+
+    void replay(Consumer<StoredToken> put, Consumer<String> remove) {
+        for (Path path : new Path[]{snapshotFile, retiredLogFile, logFile}) {
+            if (!Files.exists(path)) {
+                continue;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    replayLine(line, put, remove, path);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read refresh token journal " + path, e);
+            }
+        }
+    }
+
+    // Starts from a snapshot of the replayed state, so no older log has to be kept around.
+    void open(Stream<StoredToken> storedTokens) {
+        try {
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            writeSnapshot(storedTokens);
+            Files.deleteIfExists(retiredLogFile);
+            Files.deleteIfExists(logFile);
+            synchronized (this) {
+                logWriter = openLog();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open refresh token journal " + snapshotFile, e);
+        }
+    }
+
+    synchronized void appendPut(StoredToken stored) {
+        append(putRecord(stored));
+    }
+
+    synchronized void appendRemove(String tokenHash) {
+        append("R " + tokenHash);
+    }
+
+    synchronized boolean needsCompaction() {
+        return recordsSinceCompaction >= compactAfterRecords;
+    }
+
+    void compact(Stream<StoredToken> storedTokens) {
+        try {
+            synchronized (this) {
+                logWriter.close();
+                Files.move(logFile, retiredLogFile, StandardCopyOption.REPLACE_EXISTING);
+                logWriter = openLog();
+                recordsSinceCompaction = 0;
+            }
+            writeSnapshot(storedTokens);
+            Files.deleteIfExists(retiredLogFile);
+        } catch (IOException e) {
+            log.error("Refresh token journal compaction failed", e);
+        }
+    }
+
+    synchronized void close() {
+        try {
+            if (logWriter != null) {
+                logWriter.close();
+            }
+        } catch (IOException e) {
+            log.warn("Could not close refresh token journal", e);
+        }
+    }
+
+    private void append(String record) {
+        try {
+            logWriter.write(record);
+            logWriter.newLine();
+            logWriter.flush();
+            recordsSinceCompaction++;
+        } catch (IOException e) {
+            // The in-memory state stays authoritative; only restart durability is lost.
+            log.error("Could not append to refresh token journal", e);
+        }
+    }
+
+    private void writeSnapshot(Stream<StoredToken> storedTokens) throws IOException {
+        Path temporaryFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+            Iterator<StoredToken> iterator = storedTokens.iterator();
+            while (iterator.hasNext()) {
+                writer.write(putRecord(iterator.next()));
+                writer.newLine();
+            }
+        }
+        Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private BufferedWriter openLog() throws IOException {
+        return Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static String putRecord(StoredToken stored) {
+        return "P " + stored.id() + ' ' + stored.tokenHash() + ' ' + stored.userId() + ' ' + stored.familyId() + ' '
+                + Objects.requireNonNullElse(stored.previousTokenHash(), "-") + ' ' + stored.expiresAt().toEpochMilli();
+    }
+
+    private static void replayLine(String line, Consumer<StoredToken> put, Consumer<String> remove, Path path) {
+        String[] fields = line.split(" ");
+        try {
+            if (fields.length == 7 && fields[0].equals("P")) {
+                put.accept(new StoredToken(Long.parseLong(fields[1]), fields[2], Long.parseLong(fields[3]),
+                        UUID.fromString(fields[4]), fields[5].equals("-") ? null : fields[5],
+                        Instant.ofEpochMilli(Long.parseLong(fields[6]))));
+                return;
+            }
+            if (fields.length == 2 && fields[0].equals("R")) {
+                remove.accept(fields[1]);
+                return;
+            }
+        } catch (IllegalArgumentException ignored) {
+            // reported below
+        }
+        // Typically a record cut short by a crash mid-write.
+        log.warn("Skipping malformed refresh token journal record in {}", path);
+    }
+}
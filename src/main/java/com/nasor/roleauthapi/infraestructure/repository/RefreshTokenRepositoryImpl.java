@@ -2,31 +2,67 @@ package com.nasor.roleauthapi.infraestructure.repository;
 
 import com.nasor.roleauthapi.domain.RefreshToken;
 import com.nasor.roleauthapi.domain.RefreshTokenRepository;
+import com.nasor.roleauthapi.domain.Role;
 import com.nasor.roleauthapi.domain.User;
 import com.nasor.roleauthapi.infraestructure.persistence.RefreshTokenEntity;
 import com.nasor.roleauthapi.infraestructure.persistence.UserEntity;
+import com.nasor.roleauthapi.infraestructure.security.RefreshTokenCodec;
 import jakarta.transaction.Transactional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.Optional;
+import java.util.UUID;
 
 @Component
+@ConditionalOnProperty(name = "app.refresh-token.store", havingValue = "jpa", matchIfMissing = true)
 public class RefreshTokenRepositoryImpl implements RefreshTokenRepository {
+    // Swaps the token in place and returns the owner in the same round trip; expired or unknown tokens match no row.
+    private static final String ROTATE_SQL = """
+            UPDATE refresh_tokens rt
+            SET token_hash = ?, previous_token_hash = rt.token_hash, expiry_date = ?
+            FROM app_user u
+            WHERE rt.token_hash = ? AND rt.expiry_date > now() AND u.id = rt.user_id
+            RETURNING rt.id, rt.family_id, rt.expiry_date, u.id AS user_id, u.username, u.password, u.first_name, u.last_name, u.role
+            """;
+    // A family keeps a single row, so revoking the family of a reused token is deleting that row. The row only
+    // remembers the last rotated-away token, so replaying an older one is not detected as reuse.
+    private static final String REVOKE_REUSED_FAMILY_SQL = "DELETE FROM refresh_tokens WHERE previous_token_hash = ?";
+    // Rotation pushes expiry_date forward, so the families sorted last are the ones used least recently.
+    private static final String DELETE_FAMILIES_BEYOND_SQL = """
+            DELETE FROM refresh_tokens
+            WHERE id IN (SELECT id FROM refresh_tokens WHERE user_id = ? ORDER BY expiry_date DESC, id DESC OFFSET ?)
+            """;
+
     private final SpringDataRefreshTokenRepository springDataRefreshTokenRepository;
     private final SpringDataUserRepository springDataUserRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final RefreshTokenCodec refreshTokenCodec;
+    private final RefreshTokenHashMigration refreshTokenHashMigration;
     public RefreshTokenRepositoryImpl(SpringDataRefreshTokenRepository springDataRefreshTokenRepository,
-                                      SpringDataUserRepository springDataUserRepository) {
+                                      SpringDataUserRepository springDataUserRepository,
+                                      JdbcTemplate jdbcTemplate,
+                                      RefreshTokenCodec refreshTokenCodec,
+                                      RefreshTokenHashMigration refreshTokenHashMigration) {
         this.springDataRefreshTokenRepository = springDataRefreshTokenRepository;
         this.springDataUserRepository = springDataUserRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshTokenCodec = refreshTokenCodec;
+        this.refreshTokenHashMigration = refreshTokenHashMigration;
     }
 
-    private RefreshToken toDomainRefreshToken(RefreshTokenEntity domainRefreshTokenEntity) {
+    // Only the digest is stored, so the raw token is carried over from the caller when it is known.
+    RefreshToken toDomainRefreshToken(RefreshTokenEntity domainRefreshTokenEntity, String token) {
         if (domainRefreshTokenEntity == null) {
             return null;
         }
         return RefreshToken.builder()
                 .id(domainRefreshTokenEntity.getId())
-                .token(domainRefreshTokenEntity.getToken())
+                .token(token)
+                .familyId(domainRefreshTokenEntity.getFamilyId())
                 .user(User.builder()
                         .id(domainRefreshTokenEntity.getUser().getId())
                         .username(domainRefreshTokenEntity.getUser().getUsername())
@@ -39,15 +75,17 @@ public class RefreshTokenRepositoryImpl implements RefreshTokenRepository {
                 .build();
     }
 
-    private RefreshTokenEntity toJpaRefreshTokenEntity(RefreshToken domainRefreshTokenEntity) {
+    RefreshTokenEntity toJpaRefreshTokenEntity(RefreshToken domainRefreshTokenEntity) {
         if (domainRefreshTokenEntity == null) {
             return null;
         }
-        UserEntity userEntity = springDataUserRepository.findByUsername(domainRefreshTokenEntity.getUser().getUsername())
-                .orElse(null);
+        // A reference is enough for the foreign key and avoids re-selecting the user we already have.
+        UserEntity userEntity = springDataUserRepository.getReferenceById(domainRefreshTokenEntity.getUser().getId());
         return RefreshTokenEntity.builder()
                 .id(domainRefreshTokenEntity.getId())
-                .token(domainRefreshTokenEntity.getToken())
+                .tokenHash(domainRefreshTokenEntity.getToken() == null
+                        ? null : refreshTokenCodec.hash(domainRefreshTokenEntity.getToken()))
+                .familyId(domainRefreshTokenEntity.getFamilyId())
                 .user(userEntity)
                 .expiryDate(domainRefreshTokenEntity.getExpiresAt())
                 .build();
@@ -57,7 +95,7 @@ public class RefreshTokenRepositoryImpl implements RefreshTokenRepository {
     @Override
     public RefreshToken save(RefreshToken refreshToken) {
         RefreshTokenEntity savedEntity = springDataRefreshTokenRepository.save(toJpaRefreshTokenEntity(refreshToken));
-        return toDomainRefreshToken(savedEntity);
+        return toDomainRefreshToken(savedEntity, refreshToken.getToken());
     }
 
     @Override
@@ -68,18 +106,59 @@ public class RefreshTokenRepositoryImpl implements RefreshTokenRepository {
     @Override
     @Transactional
     public void deleteByUserId(Long userId) {
-        springDataRefreshTokenRepository.findById(userId).ifPresent(springDataRefreshTokenRepository::delete);
+        springDataRefreshTokenRepository.deleteByUserId(userId);
     }
 
     @Override
-    public Optional<RefreshToken> findByUserId(Long userId) {
-        return springDataRefreshTokenRepository.findByUser_Id(userId).map(this::toDomainRefreshToken);
+    public Optional<RefreshToken> findByToken(String token) {
+        Optional<RefreshToken> refreshToken = findByTokenHash(token);
+        if (refreshToken.isEmpty() && refreshTokenHashMigration.migrate(token)) {
+            refreshToken = findByTokenHash(token);
+        }
+        return refreshToken;
+    }
+
+    private Optional<RefreshToken> findByTokenHash(String token) {
+        return springDataRefreshTokenRepository.findByTokenHash(refreshTokenCodec.hash(token))
+                .map(entity -> toDomainRefreshToken(entity, token));
     }
 
     @Override
-    public Optional<RefreshToken> findByToken(String token) {
-        return springDataRefreshTokenRepository.findByToken(token).map(this::toDomainRefreshToken);
+    public Optional<RefreshToken> rotate(String currentToken, String newToken, Instant newExpiresAt) {
+        Optional<RefreshToken> rotated = rotateByHash(currentToken, newToken, newExpiresAt);
+        if (rotated.isEmpty() && refreshTokenHashMigration.migrate(currentToken)) {
+            rotated = rotateByHash(currentToken, newToken, newExpiresAt);
+        }
+        return rotated;
     }
 
+    @Override
+    public boolean revokeFamilyOfReusedToken(String token) {
+        return jdbcTemplate.update(REVOKE_REUSED_FAMILY_SQL, refreshTokenCodec.hash(token)) > 0;
+    }
+
+    @Override
+    public void deleteFamiliesBeyond(Long userId, int familiesToKeep) {
+        jdbcTemplate.update(DELETE_FAMILIES_BEYOND_SQL, userId, familiesToKeep);
+    }
 
+    private Optional<RefreshToken> rotateByHash(String currentToken, String newToken, Instant newExpiresAt) {
+        return jdbcTemplate.query(ROTATE_SQL, (resultSet, rowNum) -> RefreshToken.builder()
+                        .id(resultSet.getLong("id"))
+                        .token(newToken)
+                        .familyId(resultSet.getObject("family_id", UUID.class))
+                        .expiresAt(resultSet.getTimestamp("expiry_date").toInstant())
+                        .user(User.builder()
+                                .id(resultSet.getLong("user_id"))
+                                .username(resultSet.getString("username"))
+                                .password(resultSet.getString("password"))
+                                .firstName(resultSet.getString("first_name"))
+                                .lastName(resultSet.getString("last_name"))
+                                .role(Role.valueOf(resultSet.getString("role")))
+                                .build())
+                        .build(),
+                refreshTokenCodec.hash(newToken), Timestamp.from(newExpiresAt), refreshTokenCodec.hash(currentToken))
+                .stream()
+                .findFirst();
+    }
 }
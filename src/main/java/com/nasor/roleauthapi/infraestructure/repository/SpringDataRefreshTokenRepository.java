@@ -2,10 +2,15 @@ package com.nasor.roleauthapi.infraestructure.repository;
 
 import com.nasor.roleauthapi.infraestructure.persistence.RefreshTokenEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface SpringDataRefreshTokenRepository extends JpaRepository<RefreshTokenEntity, Long> {
-    Optional<RefreshTokenEntity> findByToken(String Token);
-    Optional<RefreshTokenEntity> findByUser_Id(Long userId);
+    Optional<RefreshTokenEntity> findByTokenHash(byte[] tokenHash);
+    @Modifying
+    @Query("delete from RefreshTokenEntity r where r.user.id = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,21 @@
+package com.nasor.roleauthapi.infraestructure.repository;
+
+import com.nasor.roleauthapi.infraestructure.persistence.RevokedAccessTokenEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SpringDataRevokedAccessTokenRepository extends JpaRepository<RevokedAccessTokenEntity, String> {
+    @Query("select r.tokenId from RevokedAccessTokenEntity r where r.expiresAt > :now")
+    List<String> findActiveTokenIds(@Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedAccessTokenEntity r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -1,11 +1,18 @@
 package com.nasor.roleauthapi.infraestructure.repository;
 
+import com.nasor.roleauthapi.domain.Role;
 import com.nasor.roleauthapi.infraestructure.persistence.UserEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface SpringDataUserRepository extends JpaRepository<UserEntity, Long> {
     Optional<UserEntity> findByUsername(String username);
     boolean existsByUsername(String username);
+    List<UserEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    List<UserEntity> findByIdGreaterThanAndRoleOrderByIdAsc(Long id, Role role, Limit limit);
+    List<UserEntity> findByIdGreaterThanAndUsernameStartingWithOrderByIdAsc(Long id, String usernamePrefix, Limit limit);
+    List<UserEntity> findByIdGreaterThanAndRoleAndUsernameStartingWithOrderByIdAsc(Long id, Role role, String usernamePrefix, Limit limit);
 }
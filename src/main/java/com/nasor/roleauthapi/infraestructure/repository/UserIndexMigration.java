@@ -0,0 +1,33 @@
+package com.nasor.roleauthapi.infraestructure.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indexes behind the filtered admin user listing. {@code (role, id)} lets a role-filtered page seek to
+ * the cursor in id order. The username unique index follows the database collation, which cannot serve
+ * {@code LIKE 'prefix%'}, so prefix filters get a {@code varchar_pattern_ops} index of their own.
+ * Both statements are no-ops once applied.
+ */
+@Component
+public class UserIndexMigration implements InitializingBean {
+    private static final String ROLE_ID_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_app_user_role_id ON app_user (role, id)";
+    private static final String USERNAME_PATTERN_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_app_user_username_pattern ON app_user (username varchar_pattern_ops)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The EntityManagerFactory dependency only orders this after schema update.
+    public UserIndexMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.execute(ROLE_ID_INDEX_SQL);
+        jdbcTemplate.execute(USERNAME_PATTERN_INDEX_SQL);
+    }
+}
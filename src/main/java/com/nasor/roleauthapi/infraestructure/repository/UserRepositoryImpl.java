@@ -1,23 +1,53 @@
 package com.nasor.roleauthapi.infraestructure.repository;
 
+import com.nasor.roleauthapi.domain.Role;
 import com.nasor.roleauthapi.domain.User;
 import com.nasor.roleauthapi.domain.UserRepository;
 import com.nasor.roleauthapi.infraestructure.persistence.UserEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Component
 public class UserRepositoryImpl implements UserRepository {
+    // Relies on the unique username constraint: a taken username inserts nothing and returns no row.
+    private static final String INSERT_IF_ABSENT_SQL = """
+            INSERT INTO app_user (username, password, first_name, last_name, role)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (username) DO NOTHING
+            RETURNING id
+            """;
+    private static final String EXPORT_SQL =
+            "SELECT id, username, first_name, last_name, role FROM app_user ORDER BY id";
+
     private final SpringDataUserRepository springDataUserRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int exportFetchSize;
 
-    public UserRepositoryImpl(SpringDataUserRepository springDataUserRepository) {
+    public UserRepositoryImpl(SpringDataUserRepository springDataUserRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.export.fetch-size:1000}") int exportFetchSize) {
         this.springDataUserRepository = springDataUserRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.exportFetchSize = exportFetchSize;
     }
 
-    private User toDomainUser(UserEntity userEntity) {
+    User toDomainUser(UserEntity userEntity) {
         if (userEntity == null) {
             return null;
         }
@@ -31,7 +61,7 @@ public class UserRepositoryImpl implements UserRepository {
                 .build();
     }
 
-    private UserEntity toUserEntity(User domainUser) {
+    UserEntity toUserEntity(User domainUser) {
         if (domainUser == null) {
             return null;
         }
@@ -61,13 +91,61 @@ public class UserRepositoryImpl implements UserRepository {
         return toDomainUser(userEntity);
     }
 
+    @Override
+    public Optional<User> insertIfAbsent(User user) {
+        return jdbcTemplate.queryForList(INSERT_IF_ABSENT_SQL, Long.class,
+                        user.getUsername(), user.getPassword(), user.getFirstName(), user.getLastName(), user.getRole().name())
+                .stream()
+                .findFirst()
+                .map(id -> User.builder()
+                        .id(id)
+                        .username(user.getUsername())
+                        .password(user.getPassword())
+                        .firstName(user.getFirstName())
+                        .lastName(user.getLastName())
+                        .role(user.getRole())
+                        .build());
+    }
+
     @Override
     public boolean existsByUsername(String username) {
         return springDataUserRepository.existsByUsername(username);
     }
 
     @Override
-    public List<User> findAllUsers() {
-        return springDataUserRepository.findAll().stream().map(this::toDomainUser).collect(Collectors.toList());
+    public void forEachUser(Consumer<User> action) {
+        // The PostgreSQL driver only streams with a fetch size inside a transaction; otherwise it
+        // buffers the whole result set in memory.
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(exportFetchSize);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> action.accept(User.builder()
+                .id(resultSet.getLong("id"))
+                .username(resultSet.getString("username"))
+                .firstName(resultSet.getString("first_name"))
+                .lastName(resultSet.getString("last_name"))
+                .role(Role.valueOf(resultSet.getString("role")))
+                .build())));
+    }
+
+    @Override
+    public List<User> findPageAfterId(Long afterId, int limit, Role role, String usernamePrefix) {
+        long cursor = afterId != null ? afterId : 0L;
+        Limit pageLimit = Limit.of(limit);
+        boolean byPrefix = usernamePrefix != null && !usernamePrefix.isEmpty();
+
+        List<UserEntity> page;
+        if (role != null && byPrefix) {
+            page = springDataUserRepository.findByIdGreaterThanAndRoleAndUsernameStartingWithOrderByIdAsc(cursor, role, usernamePrefix, pageLimit);
+        } else if (role != null) {
+            page = springDataUserRepository.findByIdGreaterThanAndRoleOrderByIdAsc(cursor, role, pageLimit);
+        } else if (byPrefix) {
+            page = springDataUserRepository.findByIdGreaterThanAndUsernameStartingWithOrderByIdAsc(cursor, usernamePrefix, pageLimit);
+        } else {
+            page = springDataUserRepository.findByIdGreaterThanOrderByIdAsc(cursor, pageLimit);
+        }
+        return page.stream().map(this::toDomainUser).collect(Collectors.toList());
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import com.nasor.roleauthapi.infraestructure.persistence.RevokedAccessTokenEntity;
+import com.nasor.roleauthapi.infraestructure.repository.SpringDataRevokedAccessTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked access tokens, by {@code jti}. The revoked_access_tokens table is the exact store. In front
+ * of it sits a Bloom filter rebuilt from the table on a schedule, so a token that was never revoked is
+ * cleared with one in-memory probe. Only filter hits, the revoked tokens plus a small false positive rate,
+ * go to the database. Rows are purged once their token has expired. Revocations made on this node apply
+ * immediately; those made on other nodes apply after the next rebuild.
+ */
+@Slf4j
+@Component
+public class AccessTokenRevocationList {
+    private final SpringDataRevokedAccessTokenRepository revokedAccessTokenRepository;
+    private final double falsePositiveProbability;
+    private final int minimumCapacity;
+    private final Counter filterHitCounter;
+    private final Counter revokedCounter;
+    // Revoked here but possibly missing from the table snapshot the current filter was built from.
+    private final Map<String, Instant> localRevocations = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    public AccessTokenRevocationList(SpringDataRevokedAccessTokenRepository revokedAccessTokenRepository,
+                                     @Value("${jwt.revocation.false-positive-probability:0.01}") double falsePositiveProbability,
+                                     @Value("${jwt.revocation.minimum-capacity:10000}") int minimumCapacity,
+                                     MeterRegistry meterRegistry) {
+        this.revokedAccessTokenRepository = revokedAccessTokenRepository;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.minimumCapacity = minimumCapacity;
+        this.filterHitCounter = Counter.builder("auth.jwt.revocation.filter.hits")
+                .register(meterRegistry);
+        this.revokedCounter = Counter.builder("auth.jwt.revocation.rejected")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        rebuild();
+    }
+
+    public boolean isRevoked(String tokenId) {
+        // Tokens issued before jti was introduced cannot be revoked individually; they expire on their own.
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+        filterHitCounter.increment();
+        boolean revoked = revokedAccessTokenRepository.existsById(tokenId);
+        if (revoked) {
+            revokedCounter.increment();
+        }
+        return revoked;
+    }
+
+    public void revoke(String tokenId, Instant expiresAt) {
+        revokedAccessTokenRepository.save(RevokedAccessTokenEntity.builder()
+                .tokenId(tokenId)
+                .expiresAt(expiresAt)
+                .build());
+        synchronized (this) {
+            localRevocations.put(tokenId, expiresAt);
+            filter.put(tokenId);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${jwt.revocation.rebuild-interval:PT30S}",
+            fixedDelayString = "${jwt.revocation.rebuild-interval:PT30S}")
+    public void rebuild() {
+        Instant now = Instant.now();
+        int purged = revokedAccessTokenRepository.deleteExpired(now);
+        List<String> tokenIds = revokedAccessTokenRepository.findActiveTokenIds(now);
+        // Headroom so revocations until the next rebuild do not push the false positive rate up.
+        BloomFilter rebuilt = BloomFilter.create(Math.max(minimumCapacity, tokenIds.size() * 2L),
+                falsePositiveProbability);
+        tokenIds.forEach(rebuilt::put);
+
+        Set<String> snapshot = new HashSet<>(tokenIds);
+        synchronized (this) {
+            localRevocations.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+            localRevocations.entrySet().removeIf(entry ->
+                    snapshot.contains(entry.getKey()) || !entry.getValue().isAfter(now));
+        }
+        log.debug("Revocation list rebuilt with {} active entries, {} expired purged", tokenIds.size(), purged);
+    }
+}
@@ -0,0 +1,106 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AIMD limit on the number of requests in flight for one budget. A response slower than the latency
+ * target shrinks the limit by the backoff ratio, at most once per target interval so one slow burst does
+ * not collapse it. A fast response grows the limit by {@code 1/limit}, about one slot per round of
+ * requests, but only while at least half the limit is in use. Acquiring and adjusting are CAS loops.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limitBits;
+    private final AtomicLong lastDecreaseAt = new AtomicLong(System.nanoTime());
+    private final Counter droppedCounter;
+
+    public AdaptiveConcurrencyLimiter(String budget, int initialLimit, int minLimit, int maxLimit,
+                                      Duration latencyTarget, double backoffRatio, MeterRegistry meterRegistry) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(Math.max(minLimit, Math.min(maxLimit, initialLimit))));
+
+        Gauge.builder("concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("budget", budget)
+                .register(meterRegistry);
+        Gauge.builder("concurrency.in_flight", inFlight, AtomicInteger::get)
+                .tag("budget", budget)
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("concurrency.dropped")
+                .tag("budget", budget)
+                .register(meterRegistry);
+    }
+
+    public boolean tryAcquire() {
+        int limit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                droppedCounter.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos) {
+        int inFlightBeforeRelease = inFlight.getAndDecrement();
+        if (latencyNanos > latencyTargetNanos) {
+            decrease();
+        } else {
+            increase(inFlightBeforeRelease);
+        }
+    }
+
+    // For requests whose latency says nothing about load, e.g. ones handed off to async processing.
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    private void increase(int inFlightBeforeRelease) {
+        while (true) {
+            long bits = limitBits.get();
+            double limit = Double.longBitsToDouble(bits);
+            if (limit >= maxLimit || inFlightBeforeRelease * 2 < limit) {
+                return;
+            }
+            double increased = Math.min(maxLimit, limit + 1.0 / limit);
+            if (limitBits.compareAndSet(bits, Double.doubleToLongBits(increased))) {
+                return;
+            }
+        }
+    }
+
+    private void decrease() {
+        long now = System.nanoTime();
+        long last = lastDecreaseAt.get();
+        if (now - last < latencyTargetNanos || !lastDecreaseAt.compareAndSet(last, now)) {
+            return;
+        }
+        while (true) {
+            long bits = limitBits.get();
+            double decreased = Math.max(minLimit, Double.longBitsToDouble(bits) * backoffRatio);
+            if (limitBits.compareAndSet(bits, Double.doubleToLongBits(decreased))) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+/**
+ * Picks the BCrypt work factor whose hashing time on this host is closest to a target. Each extra
+ * round doubles the cost, so a few hashes at a cheap probe strength are enough to extrapolate.
+ */
+@Slf4j
+public final class BCryptStrengthCalibrator {
+    private static final int PROBE_STRENGTH = 8;
+    private static final int SAMPLES = 3;
+
+    private BCryptStrengthCalibrator() {
+    }
+
+    public static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(PROBE_STRENGTH);
+        probe.encode("calibration-warm-up");
+
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration-sample-" + i);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        double probeMillis = Math.max(samples[SAMPLES / 2] / 1_000_000.0, 0.01);
+
+        int strength = PROBE_STRENGTH + (int) Math.round(Math.log(targetMillis / probeMillis) / Math.log(2));
+        strength = Math.max(minStrength, Math.min(maxStrength, strength));
+        log.info("BCrypt calibrated to strength {} (probe strength {} took {} ms, target {} ms)",
+                strength, PROBE_STRENGTH, String.format("%.2f", probeMillis), targetMillis);
+        return strength;
+    }
+
+    // The cost is the two digits after the version in "$2a$10$...", or -1 for anything else.
+    public static int strengthOf(String bcryptHash) {
+        if (bcryptHash == null || bcryptHash.length() < 7 || bcryptHash.charAt(0) != '$' || bcryptHash.charAt(3) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(bcryptHash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings, safe for concurrent {@link #put} and {@link #mightContain}.
+ * One 64-bit hash of the value is split into two halves and combined (Kirsch-Mitzenmacher) to derive
+ * every probe position, so a lookup costs a single pass over the value plus {@code k} bit tests.
+ */
+final class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.words = new AtomicLongArray(Math.toIntExact((bitCount + 63) / 64));
+        this.bitCount = (long) words.length() * 64;
+        this.hashCount = hashCount;
+    }
+
+    static BloomFilter create(long expectedInsertions, double falsePositiveProbability) {
+        long insertions = Math.max(1, expectedInsertions);
+        long bits = Math.max(64, (long) Math.ceil(-insertions * Math.log(falsePositiveProbability)
+                / (Math.log(2) * Math.log(2))));
+        int hashes = Math.max(1, (int) Math.round((double) bits / insertions * Math.log(2)));
+        return new BloomFilter(bits, hashes);
+    }
+
+    void put(String value) {
+        long hash = hash(value);
+        long combined = hash;
+        long increment = (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, add) -> current | add);
+            }
+            combined += increment;
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        long combined = hash;
+        long increment = (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += increment;
+        }
+        return true;
+    }
+
+    // FNV-1a over the chars, then the SplitMix64 finalizer to spread the bits.
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
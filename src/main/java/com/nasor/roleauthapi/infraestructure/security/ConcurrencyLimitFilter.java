@@ -0,0 +1,71 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Sheds load ahead of Spring Security: each request under one of the configured path prefixes must get
+ * a slot from that prefix's {@link AdaptiveConcurrencyLimiter} or is answered 503 with Retry-After.
+ * Keeping authentication and protected endpoints on separate limiters means a login surge, which is
+ * dominated by BCrypt, cannot take the slots of already authenticated traffic. Other paths pass through.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private final Map<String, AdaptiveConcurrencyLimiter> limitersByPathPrefix;
+    private final long retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(Map<String, AdaptiveConcurrencyLimiter> limitersByPathPrefix, long retryAfterSeconds) {
+        this.limitersByPathPrefix = limitersByPathPrefix;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        AdaptiveConcurrencyLimiter limiter = limiterFor(request);
+        if (limiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limiter.tryAcquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("Server is busy, please retry later");
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                limiter.releaseWithoutSample();
+            } else {
+                limiter.release(System.nanoTime() - startedAt);
+            }
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter limiterFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Map.Entry<String, AdaptiveConcurrencyLimiter> entry : limitersByPathPrefix.entrySet()) {
+            if (path.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,216 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.Base64;
+
+/**
+ * Encoder for the fixed access token shape issued by {@link JwtService}. It writes the claims JSON
+ * straight into a per-thread byte buffer, reuses a precomputed header segment and a per-thread
+ * {@link Mac}, and produces a compact JWS that jjwt verifies exactly like one built by
+ * {@code Jwts.builder()}.
+ */
+class Hs256TokenEncoder {
+    static final byte[] HEADER_SEGMENT = Base64.getUrlEncoder().withoutPadding()
+            .encode("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.US_ASCII));
+    private static final byte[] BASE64_URL_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+
+    private final ThreadLocal<Mac> macs;
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    Hs256TokenEncoder(Key signingKey) {
+        newMac(signingKey);
+        this.macs = ThreadLocal.withInitial(() -> newMac(signingKey));
+    }
+
+    String encode(String subject, String role, Long userId, String firstName, String lastName, String tokenId,
+                  long issuedAtSeconds, long expiresAtSeconds) {
+        Buffers buffers = this.buffers.get();
+        ByteSink json = buffers.json;
+        json.reset();
+        json.put('{');
+        if (role != null) {
+            json.putStringField(JwtService.ROLE_CLAIM, role);
+            json.put(',');
+        }
+        if (userId != null) {
+            json.putNumberField(JwtService.USER_ID_CLAIM, userId);
+            json.put(',');
+        }
+        if (firstName != null) {
+            json.putStringField(JwtService.FIRST_NAME_CLAIM, firstName);
+            json.put(',');
+        }
+        if (lastName != null) {
+            json.putStringField(JwtService.LAST_NAME_CLAIM, lastName);
+            json.put(',');
+        }
+        json.putStringField("jti", tokenId);
+        json.put(',');
+        json.putStringField("sub", subject);
+        json.put(',');
+        json.putNumberField("iat", issuedAtSeconds);
+        json.put(',');
+        json.putNumberField("exp", expiresAtSeconds);
+        json.put('}');
+
+        ByteSink token = buffers.token;
+        token.reset();
+        token.putBytes(HEADER_SEGMENT);
+        token.put('.');
+        token.putBase64Url(json.buf, json.len);
+
+        Mac mac = macs.get();
+        mac.update(token.buf, 0, token.len);
+        byte[] signature = mac.doFinal();
+
+        token.put('.');
+        token.putBase64Url(signature, signature.length);
+        return new String(token.buf, 0, token.len, StandardCharsets.ISO_8859_1);
+    }
+
+    static Mac newMac(Key signingKey) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(signingKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available for the configured signing key", e);
+        }
+    }
+
+    private static final class Buffers {
+        private final ByteSink json = new ByteSink(256);
+        private final ByteSink token = new ByteSink(512);
+    }
+
+    private static final class ByteSink {
+        private byte[] buf;
+        private int len;
+
+        private ByteSink(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        private void reset() {
+            len = 0;
+        }
+
+        private void ensure(int extra) {
+            if (len + extra > buf.length) {
+                byte[] grown = new byte[Math.max(buf.length * 2, len + extra)];
+                System.arraycopy(buf, 0, grown, 0, len);
+                buf = grown;
+            }
+        }
+
+        private void put(char c) {
+            ensure(1);
+            buf[len++] = (byte) c;
+        }
+
+        private void putBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, len, bytes.length);
+            len += bytes.length;
+        }
+
+        private void putStringField(String name, String value) {
+            putString(name);
+            put(':');
+            putString(value);
+        }
+
+        private void putNumberField(String name, long value) {
+            putString(name);
+            put(':');
+            putLong(value);
+        }
+
+        private void putLong(long value) {
+            if (value < 0) {
+                put('-');
+                value = -value;
+            }
+            ensure(19);
+            int start = len;
+            do {
+                buf[len++] = (byte) ('0' + (value % 10));
+                value /= 10;
+            } while (value != 0);
+            for (int i = start, j = len - 1; i < j; i++, j--) {
+                byte tmp = buf[i];
+                buf[i] = buf[j];
+                buf[j] = tmp;
+            }
+        }
+
+        private void putString(String value) {
+            ensure(value.length() * 3 + 2);
+            buf[len++] = '"';
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    ensure(2);
+                    buf[len++] = '\\';
+                    buf[len++] = (byte) c;
+                } else if (c < 0x20) {
+                    ensure(6);
+                    buf[len++] = '\\';
+                    buf[len++] = 'u';
+                    buf[len++] = '0';
+                    buf[len++] = '0';
+                    buf[len++] = (byte) Character.forDigit(c >> 4, 16);
+                    buf[len++] = (byte) Character.forDigit(c & 0xF, 16);
+                } else if (c < 0x80) {
+                    buf[len++] = (byte) c;
+                } else if (c < 0x800) {
+                    buf[len++] = (byte) (0xC0 | (c >> 6));
+                    buf[len++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    ensure(4);
+                    buf[len++] = (byte) (0xF0 | (codePoint >> 18));
+                    buf[len++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buf[len++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buf[len++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buf[len++] = '?';
+                } else {
+                    buf[len++] = (byte) (0xE0 | (c >> 12));
+                    buf[len++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buf[len++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            ensure(1);
+            buf[len++] = '"';
+        }
+
+        private void putBase64Url(byte[] src, int srcLen) {
+            ensure((srcLen + 2) / 3 * 4);
+            int i = 0;
+            for (; i + 3 <= srcLen; i += 3) {
+                int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+                buf[len++] = BASE64_URL_ALPHABET[(bits >>> 18) & 0x3F];
+                buf[len++] = BASE64_URL_ALPHABET[(bits >>> 12) & 0x3F];
+                buf[len++] = BASE64_URL_ALPHABET[(bits >>> 6) & 0x3F];
+                buf[len++] = BASE64_URL_ALPHABET[bits & 0x3F];
+            }
+            int remaining = srcLen - i;
+            if (remaining == 1) {
+                int bits = (src[i] & 0xFF) << 16;
+                buf[len++] = BASE64_URL_ALPHABET[(bits >>> 18) & 0x3F];
+                buf[len++] = BASE64_URL_ALPHABET[(bits >>> 12) & 0x3F];
+            } else if (remaining == 2) {
+                int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8;
+                buf[len++] = BASE64_URL_ALPHABET[(bits >>> 18) & 0x3F];
+                buf[len++] = BASE64_URL_ALPHABET[(bits >>> 12) & 0x3F];
+                buf[len++] = BASE64_URL_ALPHABET[(bits >>> 6) & 0x3F];
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Fast path for verifying the access tokens produced by {@link Hs256TokenEncoder}. The HMAC is
+ * checked in constant time over the raw token bytes and the payload is scanned for the few claims
+ * the filter needs, without building a claims map or {@code Date} objects.
+ * <p>
+ * {@link #verify(String)} returns {@code null} for anything it does not fully understand (other
+ * headers or algorithms, unknown or nested claims, escaped strings) as well as for invalid or
+ * expired tokens, so the caller can fall back to jjwt and get its exact validation and errors.
+ */
+class Hs256TokenVerifier {
+    private static final int HEADER_LENGTH = Hs256TokenEncoder.HEADER_SEGMENT.length;
+
+    private static final byte[] JTI = ascii("jti");
+    private static final byte[] SUB = ascii("sub");
+    private static final byte[] IAT = ascii("iat");
+    private static final byte[] EXP = ascii("exp");
+    private static final byte[] ROLE = ascii(JwtService.ROLE_CLAIM);
+    private static final byte[] USER_ID = ascii(JwtService.USER_ID_CLAIM);
+    private static final byte[] FIRST_NAME = ascii(JwtService.FIRST_NAME_CLAIM);
+    private static final byte[] LAST_NAME = ascii(JwtService.LAST_NAME_CLAIM);
+
+    private final ThreadLocal<Mac> macs;
+
+    Hs256TokenVerifier(Key signingKey) {
+        Hs256TokenEncoder.newMac(signingKey);
+        this.macs = ThreadLocal.withInitial(() -> Hs256TokenEncoder.newMac(signingKey));
+    }
+
+    VerifiedClaims verify(String token) {
+        int secondDot = token.lastIndexOf('.');
+        if (secondDot <= HEADER_LENGTH || token.charAt(HEADER_LENGTH) != '.'
+                || token.indexOf('.', HEADER_LENGTH + 1) != secondDot) {
+            return null;
+        }
+
+        byte[] signingInput = new byte[secondDot];
+        for (int i = 0; i < secondDot; i++) {
+            char c = token.charAt(i);
+            if (c > 0x7F) {
+                return null;
+            }
+            signingInput[i] = (byte) c;
+        }
+        if (!Arrays.equals(signingInput, 0, HEADER_LENGTH,
+                Hs256TokenEncoder.HEADER_SEGMENT, 0, HEADER_LENGTH)) {
+            return null;
+        }
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            signature = Base64.getUrlDecoder().decode(token.substring(secondDot + 1));
+            payload = Base64.getUrlDecoder().decode(Arrays.copyOfRange(signingInput, HEADER_LENGTH + 1, secondDot));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        Mac mac = macs.get();
+        mac.update(signingInput);
+        if (!MessageDigest.isEqual(mac.doFinal(), signature)) {
+            return null;
+        }
+
+        return new ClaimsScanner(payload).scan();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final class ClaimsScanner {
+        private final byte[] json;
+        private int pos;
+
+        private String tokenId;
+        private String subject;
+        private String role;
+        private String firstName;
+        private String lastName;
+        private long userId = -1;
+        private long issuedAt = -1;
+        private long expiresAt = -1;
+
+        private ClaimsScanner(byte[] json) {
+            this.json = json;
+        }
+
+        private VerifiedClaims scan() {
+            skipWhitespace();
+            if (!consume('{')) {
+                return null;
+            }
+            skipWhitespace();
+            if (!consume('}')) {
+                do {
+                    skipWhitespace();
+                    if (!readField()) {
+                        return null;
+                    }
+                    skipWhitespace();
+                } while (consume(','));
+                if (!consume('}')) {
+                    return null;
+                }
+            }
+            skipWhitespace();
+            if (pos != json.length || expiresAt < 0) {
+                return null;
+            }
+            if (System.currentTimeMillis() > expiresAt * 1000L) {
+                return null;
+            }
+            return new VerifiedClaims(subject, role, userId < 0 ? null : userId, firstName, lastName,
+                    Instant.ofEpochSecond(expiresAt), tokenId);
+        }
+
+        private boolean readField() {
+            int keyStart = pos + 1;
+            if (!skipString()) {
+                return false;
+            }
+            int keyEnd = pos - 1;
+            skipWhitespace();
+            if (!consume(':')) {
+                return false;
+            }
+            skipWhitespace();
+
+            if (matches(keyStart, keyEnd, JTI) && tokenId == null) {
+                return (tokenId = readString()) != null;
+            }
+            if (matches(keyStart, keyEnd, SUB) && subject == null) {
+                return (subject = readString()) != null;
+            }
+            if (matches(keyStart, keyEnd, ROLE) && role == null) {
+                return (role = readString()) != null;
+            }
+            if (matches(keyStart, keyEnd, FIRST_NAME) && firstName == null) {
+                return (firstName = readString()) != null;
+            }
+            if (matches(keyStart, keyEnd, LAST_NAME) && lastName == null) {
+                return (lastName = readString()) != null;
+            }
+            if (matches(keyStart, keyEnd, EXP) && expiresAt < 0) {
+                return (expiresAt = readNumber()) >= 0;
+            }
+            if (matches(keyStart, keyEnd, IAT) && issuedAt < 0) {
+                return (issuedAt = readNumber()) >= 0;
+            }
+            if (matches(keyStart, keyEnd, USER_ID) && userId < 0) {
+                return (userId = readNumber()) >= 0;
+            }
+            return false;
+        }
+
+        private String readString() {
+            int start = pos + 1;
+            if (!skipString()) {
+                return null;
+            }
+            return new String(json, start, pos - 1 - start, StandardCharsets.UTF_8);
+        }
+
+        private boolean skipString() {
+            if (!consume('"')) {
+                return false;
+            }
+            while (pos < json.length) {
+                byte b = json[pos++];
+                if (b == '"') {
+                    return true;
+                }
+                if (b == '\\' || (b >= 0 && b < 0x20)) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private long readNumber() {
+            int start = pos;
+            long value = 0;
+            while (pos < json.length && json[pos] >= '0' && json[pos] <= '9') {
+                if (pos - start >= 18) {
+                    return -1;
+                }
+                value = value * 10 + (json[pos++] - '0');
+            }
+            return pos == start ? -1 : value;
+        }
+
+        private boolean matches(int start, int end, byte[] name) {
+            return Arrays.equals(json, start, end, name, 0, name.length);
+        }
+
+        private boolean consume(char expected) {
+            if (pos < json.length && json[pos] == expected) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length && (json[pos] == ' ' || json[pos] == '\t' || json[pos] == '\n' || json[pos] == '\r')) {
+                pos++;
+            }
+        }
+    }
+}
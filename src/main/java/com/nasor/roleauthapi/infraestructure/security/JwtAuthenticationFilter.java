@@ -1,5 +1,12 @@
 package com.nasor.roleauthapi.infraestructure.security;
 
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,21 +15,43 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final UserDetailsCache userDetailsCache;
+    private final AccessTokenRevocationList accessTokenRevocationList;
+    private final MeterRegistry meterRegistry;
+    // Registered up front so the per-request path does no meter lookup.
+    private final Map<String, Timer> verificationTimers = new HashMap<>();
+    private final Timer claimsPrincipalTimer;
+    private final Timer loadedPrincipalTimer;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsCache userDetailsCache,
+                                   AccessTokenRevocationList accessTokenRevocationList, MeterRegistry meterRegistry) {
         this.jwtService = jwtService;
-        this.userDetailsService = userDetailsService;
+        this.userDetailsCache = userDetailsCache;
+        this.accessTokenRevocationList = accessTokenRevocationList;
+        this.meterRegistry = meterRegistry;
+        for (String outcome : List.of("valid", "revoked", "expired", "bad_signature", "malformed", "unsupported", "invalid")) {
+            verificationTimers.put(outcome, Timer.builder("auth.jwt.verification")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        this.claimsPrincipalTimer = Timer.builder("auth.jwt.principal")
+                .tag("source", "claims")
+                .register(meterRegistry);
+        this.loadedPrincipalTimer = Timer.builder("auth.jwt.principal")
+                .tag("source", "user_details")
+                .register(meterRegistry);
     }
 
 
@@ -34,7 +63,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authorizationHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
+        final VerifiedClaims claims;
 
         if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -42,12 +71,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authorizationHeader.substring(7);
-        username = jwtService.extractUsername(jwt);
+        Timer.Sample verification = Timer.start(meterRegistry);
+        try {
+            claims = jwtService.verifyToken(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            verification.stop(verificationTimers.get(failureReason(e)));
+            filterChain.doFilter(request, response);
+            return;
+        }
+        // Checked on every request, after the verified-token cache, so a revocation takes effect at once.
+        if (accessTokenRevocationList.isRevoked(claims.tokenId())) {
+            verification.stop(verificationTimers.get("revoked"));
+            filterChain.doFilter(request, response);
+            return;
+        }
+        verification.stop(verificationTimers.get("valid"));
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (claims.subject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = jwtService.isClaimsOnlyAuth() && claims.hasPrincipalClaims()
+                    ? claimsPrincipalTimer.record(() -> UserDetailsImpl.fromClaims(claims))
+                    : loadedPrincipalTimer.record(() -> userDetailsCache.loadPrincipal(claims.subject()));
 
-            if(jwtService.isTokenValid(jwt, userDetails.getUsername())){
+            if (claims.subject().equals(userDetails.getUsername())) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -60,7 +105,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
-            filterChain.doFilter(request, response);
         }
+        filterChain.doFilter(request, response);
+    }
+
+    // A fixed set of reasons keeps the tag low-cardinality; exception messages never become tags.
+    private static String failureReason(RuntimeException e) {
+        if (e instanceof ExpiredJwtException) {
+            return "expired";
+        }
+        if (e instanceof SignatureException) {
+            return "bad_signature";
+        }
+        if (e instanceof MalformedJwtException) {
+            return "malformed";
+        }
+        if (e instanceof UnsupportedJwtException) {
+            return "unsupported";
+        }
+        return "invalid";
     }
 }
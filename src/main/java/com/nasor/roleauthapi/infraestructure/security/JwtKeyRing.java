@@ -0,0 +1,164 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Asymmetric signing keys for access tokens. With {@code jwt.signing-algorithm=ES256} tokens are
+ * signed with the active P-256 key and carry its {@code kid}; every key in the ring stays valid
+ * for verification and is published through the JWKS endpoint.
+ * <p>
+ * Keys are read from a PKCS#12 keystore where each alias is a {@code kid}. To rotate, add the new
+ * key and deploy so it is published, switch {@code jwt.key-ring.active-kid}, then remove the old
+ * alias once tokens signed with it have expired. Without a keystore a single ephemeral key is
+ * generated, which is only suitable for local development.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+    public static final String ES256 = "ES256";
+
+    @Getter
+    private final boolean asymmetric;
+    @Getter
+    private final String activeKeyId;
+    @Getter
+    private final PrivateKey activeSigningKey;
+    private final Map<String, PublicKey> verificationKeys;
+    @Getter
+    private final List<Map<String, Object>> jwks;
+
+    public JwtKeyRing(@Value("${jwt.signing-algorithm:HS256}") String signingAlgorithm,
+                      @Value("${jwt.key-ring.keystore:}") String keystoreLocation,
+                      @Value("${jwt.key-ring.keystore-password:}") String keystorePassword,
+                      @Value("${jwt.key-ring.active-kid:}") String activeKid) {
+        this.asymmetric = ES256.equalsIgnoreCase(signingAlgorithm);
+        if (!asymmetric) {
+            this.activeKeyId = null;
+            this.activeSigningKey = null;
+            this.verificationKeys = Collections.emptyMap();
+            this.jwks = Collections.emptyList();
+            return;
+        }
+
+        Map<String, PublicKey> publicKeys = new HashMap<>();
+        Map<String, PrivateKey> privateKeys = new HashMap<>();
+        if (keystoreLocation.isBlank()) {
+            log.warn("No jwt.key-ring.keystore configured, generating an ephemeral ES256 key. Tokens will not survive a restart.");
+            KeyPair keyPair = generateKeyPair();
+            String kid = UUID.randomUUID().toString();
+            publicKeys.put(kid, keyPair.getPublic());
+            privateKeys.put(kid, keyPair.getPrivate());
+            activeKid = kid;
+        } else {
+            loadKeystore(keystoreLocation, keystorePassword.toCharArray(), publicKeys, privateKeys);
+        }
+
+        if (!privateKeys.containsKey(activeKid)) {
+            throw new IllegalStateException("Active signing key '" + activeKid + "' is not present in the key ring");
+        }
+        this.activeKeyId = activeKid;
+        this.activeSigningKey = privateKeys.get(activeKid);
+        this.verificationKeys = Collections.unmodifiableMap(publicKeys);
+
+        List<Map<String, Object>> keys = new ArrayList<>();
+        publicKeys.forEach((kid, key) -> keys.add(toJwk(kid, (ECPublicKey) key)));
+        this.jwks = Collections.unmodifiableList(keys);
+    }
+
+    public Key verificationKey(String kid) {
+        return verificationKeys.get(kid);
+    }
+
+    private static void loadKeystore(String location, char[] password,
+                                     Map<String, PublicKey> publicKeys, Map<String, PrivateKey> privateKeys) {
+        Resource resource = new DefaultResourceLoader().getResource(location);
+        try (InputStream in = resource.getInputStream()) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, password);
+            for (String alias : Collections.list(keyStore.aliases())) {
+                if (!keyStore.isKeyEntry(alias)) {
+                    continue;
+                }
+                Certificate certificate = keyStore.getCertificate(alias);
+                if (certificate == null || !(certificate.getPublicKey() instanceof ECPublicKey publicKey)
+                        || !isP256(publicKey.getParams())) {
+                    throw new IllegalStateException("Key '" + alias + "' is not a P-256 EC key");
+                }
+                publicKeys.put(alias, publicKey);
+                privateKeys.put(alias, (PrivateKey) keyStore.getKey(alias, password));
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not load JWT key ring from " + location, e);
+        }
+    }
+
+    // Other 256-bit curves (secp256k1, brainpoolP256r1) would be published as P-256 and fail everywhere.
+    private static boolean isP256(ECParameterSpec params) throws GeneralSecurityException {
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp256r1"));
+        ECParameterSpec p256 = parameters.getParameterSpec(ECParameterSpec.class);
+        return p256.getCurve().equals(params.getCurve())
+                && p256.getGenerator().equals(params.getGenerator())
+                && p256.getOrder().equals(params.getOrder())
+                && p256.getCofactor() == params.getCofactor();
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("P-256 key generation is not available", e);
+        }
+    }
+
+    private static Map<String, Object> toJwk(String kid, ECPublicKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("use", "sig");
+        jwk.put("alg", ES256);
+        jwk.put("kid", kid);
+        jwk.put("x", coordinate(key.getW().getAffineX()));
+        jwk.put("y", coordinate(key.getW().getAffineY()));
+        return Collections.unmodifiableMap(jwk);
+    }
+
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+}
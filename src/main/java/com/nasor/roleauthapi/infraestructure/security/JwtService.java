@@ -1,25 +1,46 @@
 package com.nasor.roleauthapi.infraestructure.security;
 
+import com.nasor.roleauthapi.domain.Role;
+import com.nasor.roleauthapi.domain.User;
+import com.nasor.roleauthapi.infraestructure.observability.ServerTiming;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
-import java.security.NoSuchAlgorithmException;
-import java.security.spec.InvalidKeySpecException;
-import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class JwtService {
+    public static final String ROLE_CLAIM = "role";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String FIRST_NAME_CLAIM = "firstName";
+    public static final String LAST_NAME_CLAIM = "lastName";
+    private static final Base64.Encoder TOKEN_ID_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Set<String> ROLE_NAMES = Arrays.stream(Role.values())
+            .map(Role::name)
+            .collect(Collectors.toUnmodifiableSet());
+
     @Value("${jwt.secret}")
     private String secretKey;
 
@@ -29,10 +50,76 @@ public class JwtService {
     @Value("${jwt.refresh-expiration}") @Getter
     private long refreshExpiration;
 
+    @Value("${jwt.claims-only-auth:false}") @Getter
+    private boolean claimsOnlyAuth;
+
+    @Value("${jwt.fast-verify:true}")
+    private boolean fastVerify;
+
+    // Only read in ES256 mode, where HS256 tokens are rejected unless this is set.
+    @Value("${jwt.accept-hs256:false}")
+    private boolean acceptHs256;
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final JwtKeyRing keyRing;
+
+    private Key signingKey;
+    private JwtParser jwtParser;
+    private Hs256TokenEncoder tokenEncoder;
+    private Hs256TokenVerifier tokenVerifier;
+    private boolean hs256Accepted;
+
+    public JwtService(VerifiedTokenCache verifiedTokenCache, JwtKeyRing keyRing) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.keyRing = keyRing;
+    }
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        // JwtParser is immutable and thread-safe once built, so one instance serves every request.
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // jjwt 0.11 declares the header raw; JwsHeader<?> would clash with it instead of overriding.
+                    @Override
+                    @SuppressWarnings("rawtypes")
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolveVerificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+        this.tokenEncoder = new Hs256TokenEncoder(signingKey);
+        this.hs256Accepted = !keyRing.isAsymmetric() || acceptHs256;
+        this.tokenVerifier = fastVerify && hs256Accepted ? new Hs256TokenVerifier(signingKey) : null;
+    }
+
     public String generateToken(String username, String role){
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("role", role);
-        return buildToken(claims, username, jwtExpiration);
+        return encodeAccessToken(username, role, null, null, null);
+    }
+
+    public String generateToken(User user) {
+        if (!claimsOnlyAuth) {
+            return generateToken(user.getUsername(), user.getRole().name());
+        }
+        return encodeAccessToken(user.getUsername(), user.getRole().name(),
+                user.getId(), user.getFirstName(), user.getLastName());
+    }
+
+    private String encodeAccessToken(String username, String role, Long userId, String firstName, String lastName) {
+        if (keyRing.isAsymmetric()) {
+            Map<String, Object> claims = new HashMap<>();
+            claims.put(ROLE_CLAIM, role);
+            if (userId != null) {
+                claims.put(USER_ID_CLAIM, userId);
+                claims.put(FIRST_NAME_CLAIM, firstName);
+                claims.put(LAST_NAME_CLAIM, lastName);
+            }
+            return buildToken(claims, username, jwtExpiration);
+        }
+        long now = System.currentTimeMillis();
+        return tokenEncoder.encode(username, role, userId, firstName, lastName, newTokenId(),
+                now / 1000L, (now + jwtExpiration) / 1000L);
     }
 
     public String generateRefreshToken(String username) {
@@ -40,25 +127,96 @@ public class JwtService {
     }
 
     public String buildToken(Map<String, Object> claims, String username, long expiration) {
-        return Jwts.builder()
+        long now = System.currentTimeMillis();
+        JwtBuilder builder = Jwts.builder()
                 .setClaims(claims)
+                .setId(newTokenId())
                 .setSubject(username)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiration));
+        if (keyRing.isAsymmetric()) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, keyRing.getActiveKeyId())
+                    .signWith(keyRing.getActiveSigningKey(), SignatureAlgorithm.ES256);
+        } else {
+            builder.signWith(signingKey, SignatureAlgorithm.HS256);
+        }
+        return builder.compact();
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // Only needs to be unique, not unpredictable: the signature already protects the token.
+    private static String newTokenId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byte[] id = new byte[16];
+        random.nextBytes(id);
+        return TOKEN_ID_ENCODER.encodeToString(id);
+    }
+
+    private Key resolveVerificationKey(String keyId) {
+        // Tokens without a kid are the HS256 tokens signed with jwt.secret.
+        if (keyId == null) {
+            if (!hs256Accepted) {
+                throw new UnsupportedJwtException("HS256 tokens are not accepted once ES256 signing is enabled");
+            }
+            return signingKey;
+        }
+        Key key = keyRing.verificationKey(keyId);
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown signing key id: " + keyId);
+        }
+        return key;
+    }
+
+    /**
+     * Verifies the signature and expiry of the token exactly once and returns the claims the
+     * authentication filter needs. Throws {@link io.jsonwebtoken.JwtException} when the token
+     * is malformed, tampered with or expired.
+     */
+    public VerifiedClaims verifyToken(String token) {
+        long timingStartedAt = ServerTiming.start();
+        try {
+            VerifiedClaims cached = verifiedTokenCache.get(token);
+            if (cached != null) {
+                return cached;
+            }
+            VerifiedClaims verified = requireKnownRole(verifyUncached(token));
+            verifiedTokenCache.put(token, verified);
+            return verified;
+        } finally {
+            ServerTiming.record(ServerTiming.Phase.JWT, timingStartedAt);
+        }
+    }
+
+    private VerifiedClaims verifyUncached(String token) {
+        if (tokenVerifier != null) {
+            VerifiedClaims verified = tokenVerifier.verify(token);
+            if (verified != null) {
+                return verified;
+            }
+        }
+        Claims claims = extractClaims(token);
+        if (claims.getExpiration() == null) {
+            throw new MalformedJwtException("Token has no expiration");
+        }
+        return new VerifiedClaims(
+                claims.getSubject(),
+                claims.get(ROLE_CLAIM, String.class),
+                claims.get(USER_ID_CLAIM, Long.class),
+                claims.get(FIRST_NAME_CLAIM, String.class),
+                claims.get(LAST_NAME_CLAIM, String.class),
+                claims.getExpiration().toInstant(),
+                claims.getId());
+    }
+
+    // Rejected here, before caching, so an unknown role is an invalid token rather than a failure in fromClaims.
+    private static VerifiedClaims requireKnownRole(VerifiedClaims claims) {
+        if (claims.role() != null && !ROLE_NAMES.contains(claims.role())) {
+            throw new MalformedJwtException("Unknown role claim");
+        }
+        return claims;
     }
 
     private Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build().parseClaimsJws(token)
-                .getBody();
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -74,12 +232,8 @@ public class JwtService {
         return extractClaim(token, Claims::getExpiration);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     public boolean isTokenValid(String token, String username) {
-        final String tokenUsername = extractUsername(token);
-        return (tokenUsername.equals(username)) && !isTokenExpired(token);
+        final VerifiedClaims claims = verifyToken(token);
+        return claims.subject().equals(username) && !claims.isExpired();
     }
 }
@@ -0,0 +1,105 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per username and per client IP, checked before a login reaches BCrypt.
+ * Each bucket is a single {@link AtomicLong} holding its theoretical arrival time (GCRA, which behaves
+ * exactly like a token bucket of the same capacity and refill rate), updated with a CAS loop, so a check
+ * is O(1) and never blocks. Buckets live in size-bounded Caffeine caches and are evicted once idle for
+ * longer than it takes them to refill completely, at which point a fresh bucket is equivalent.
+ */
+@Component
+public class LoginThrottle {
+    private final boolean enabled;
+    private final Limit usernameLimit;
+    private final Limit ipLimit;
+    private final Counter usernameRejectedCounter;
+    private final Counter ipRejectedCounter;
+
+    public LoginThrottle(@Value("${app.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${app.login-throttle.username.capacity:5}") int usernameCapacity,
+                         @Value("${app.login-throttle.username.refill-period:PT1M}") Duration usernameRefillPeriod,
+                         @Value("${app.login-throttle.ip.capacity:30}") int ipCapacity,
+                         @Value("${app.login-throttle.ip.refill-period:PT1M}") Duration ipRefillPeriod,
+                         @Value("${app.login-throttle.maximum-keys:100000}") long maximumKeys,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.usernameLimit = new Limit(usernameCapacity, usernameRefillPeriod, maximumKeys);
+        this.ipLimit = new Limit(ipCapacity, ipRefillPeriod, maximumKeys);
+        this.usernameRejectedCounter = Counter.builder("auth.login.throttled")
+                .tag("key", "username")
+                .register(meterRegistry);
+        this.ipRejectedCounter = Counter.builder("auth.login.throttled")
+                .tag("key", "ip")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the client IP's bucket and one from the username's bucket.
+     * Throws {@link LoginThrottledException} with the wait until the next token when either is empty.
+     */
+    public void check(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long ipWaitNanos = ipLimit.tryAcquire(clientIp);
+        if (ipWaitNanos > 0) {
+            ipRejectedCounter.increment();
+            throw new LoginThrottledException(toRetryAfterSeconds(ipWaitNanos));
+        }
+        // Case-folded so "Admin" and "admin" cannot be used to double the attempts on one account.
+        long usernameWaitNanos = usernameLimit.tryAcquire(username.toLowerCase(Locale.ROOT));
+        if (usernameWaitNanos > 0) {
+            usernameRejectedCounter.increment();
+            throw new LoginThrottledException(toRetryAfterSeconds(usernameWaitNanos));
+        }
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static final class Limit {
+        private final long emissionIntervalNanos;
+        private final long burstToleranceNanos;
+        private final Cache<String, AtomicLong> buckets;
+
+        private Limit(int capacity, Duration refillPeriod, long maximumKeys) {
+            // One token comes back every refillPeriod / capacity; a full bucket absorbs capacity attempts at once.
+            this.emissionIntervalNanos = Math.max(1, refillPeriod.toNanos() / capacity);
+            this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maximumKeys)
+                    .expireAfterAccess(refillPeriod)
+                    .build();
+        }
+
+        // Returns 0 when a token was taken, otherwise the nanoseconds until one is available.
+        private long tryAcquire(String key) {
+            AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+            long now = System.nanoTime();
+            while (true) {
+                long current = theoreticalArrival.get();
+                long arrival = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                long wait = arrival - now - burstToleranceNanos;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (theoreticalArrival.compareAndSet(current, arrival + emissionIntervalNanos)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
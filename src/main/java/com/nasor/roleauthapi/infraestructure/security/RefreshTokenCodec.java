@@ -0,0 +1,39 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Issues opaque refresh tokens and derives the digest that is stored in their place.
+ * Clients get 32 random bytes as unpadded Base64URL (43 chars); the database only ever sees SHA-256 of the token.
+ */
+@Component
+public class RefreshTokenCodec {
+    private static final int TOKEN_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public String generate() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        return ENCODER.encodeToString(bytes);
+    }
+
+    // Hashes whatever the client presents, so legacy UUID tokens resolve the same way as new ones.
+    public byte[] hash(String token) {
+        return SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,83 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.nasor.roleauthapi.application.dto.CacheStatsDto;
+import com.nasor.roleauthapi.domain.UserRepository;
+import com.nasor.roleauthapi.infraestructure.observability.ServerTiming;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Principals for the JWT filter, so authenticated requests do not load the user every time. Entries
+ * never hold the password hash; login reads it fresh through the {@code UserDetailsService}.
+ * Eviction only reaches this node, so on other nodes a role change applies once their entry expires:
+ * {@code app.user-cache.expire-after-write-seconds} is the bound on how long a stale role is served.
+ */
+@Component
+public class UserDetailsCache {
+    private final Cache<String, UserDetailsImpl> cache;
+    private final UserRepository userRepository;
+    private final Timer lookupTimer;
+
+    public UserDetailsCache(UserRepository userRepository,
+                            @Value("${app.user-cache.maximum-size:10000}") long maximumSize,
+                            @Value("${app.user-cache.expire-after-write-seconds:30}") long expireAfterWriteSeconds,
+                            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+        // Only cache misses reach the database, so this times the actual lookups.
+        this.lookupTimer = Timer.builder("auth.user.lookup")
+                .register(meterRegistry);
+    }
+
+    public UserDetailsImpl loadPrincipal(String username) {
+        long timingStartedAt = ServerTiming.start();
+        try {
+            return cache.get(username, key -> lookupTimer.record(() -> userRepository.findByUsername(key))
+                    .map(UserDetailsImpl::buildWithoutPassword)
+                    .orElseThrow(() -> new RuntimeException("User not found: " + key)));
+        } finally {
+            ServerTiming.record(ServerTiming.Phase.PRINCIPAL, timingStartedAt);
+        }
+    }
+
+    /**
+     * Evicts the user once the surrounding transaction commits, so a concurrent request cannot
+     * re-cache the old row between the eviction and the commit. Outside a transaction the entry
+     * is evicted immediately.
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        cache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(username);
+                }
+            });
+        }
+    }
+
+    public CacheStatsDto stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDto("userDetails", cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate());
+    }
+}
@@ -53,6 +53,32 @@ public class UserDetailsImpl implements UserDetails {
                 authorities);
     }
 
+    // For principals that are cached or kept in the security context, which never need the hash.
+    public static UserDetailsImpl buildWithoutPassword(User user) {
+        return new UserDetailsImpl(
+                user.getId(),
+                user.getUsername(),
+                user.getFirstName(),
+                user.getLastName(),
+                null,
+                user.getRole(),
+                List.of(new SimpleGrantedAuthority(user.getRole().name())));
+    }
+
+    public static UserDetailsImpl fromClaims(VerifiedClaims claims) {
+        Role role = Role.valueOf(claims.role());
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(role.name()));
+
+        return new UserDetailsImpl(
+                claims.userId(),
+                claims.subject(),
+                claims.firstName(),
+                claims.lastName(),
+                null,
+                role,
+                authorities);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
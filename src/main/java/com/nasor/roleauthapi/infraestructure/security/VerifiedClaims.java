@@ -0,0 +1,21 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import java.time.Instant;
+
+public record VerifiedClaims(
+        String subject,
+        String role,
+        Long userId,
+        String firstName,
+        String lastName,
+        Instant expiresAt,
+        String tokenId
+) {
+    public boolean isExpired() {
+        return expiresAt.isBefore(Instant.now());
+    }
+
+    public boolean hasPrincipalClaims() {
+        return userId != null && role != null;
+    }
+}
@@ -0,0 +1,97 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.nasor.roleauthapi.application.dto.CacheStatsDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class VerifiedTokenCache {
+    // Rough per-entry footprint besides the token itself: key string, claims record and its strings, cache node.
+    private static final int ENTRY_OVERHEAD_BYTES = 320;
+
+    private final Cache<String, CachedToken> cache;
+
+    public VerifiedTokenCache(@Value("${jwt.verified-cache.enabled:true}") boolean enabled,
+                              @Value("${jwt.verified-cache.maximum-entries:100000}") long maximumEntries,
+                              @Value("${jwt.verified-cache.maximum-heap-bytes:67108864}") long maximumHeapBytes,
+                              MeterRegistry meterRegistry) {
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+        // Caffeine bounds either by count or by weight, so every entry weighs at least
+        // heapBudget / maximumEntries: the cache then never exceeds either limit.
+        int minimumWeight = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maximumHeapBytes / maximumEntries));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumHeapBytes)
+                .weigher((String key, CachedToken value) ->
+                        Math.max(minimumWeight, ENTRY_OVERHEAD_BYTES + key.length() + value.token().length()))
+                .expireAfter(new Expiry<String, CachedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedToken value, long currentTime) {
+                        long millis = value.claims().expiresAt().toEpochMilli() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+    }
+
+    /**
+     * Entries are keyed by the token's signature segment, which is already a keyed digest of the
+     * whole token, and a hit still requires the full token to match.
+     */
+    public VerifiedClaims get(String token) {
+        if (cache == null) {
+            return null;
+        }
+        CachedToken cached = cache.getIfPresent(signatureOf(token));
+        if (cached == null || !cached.token().equals(token)) {
+            return null;
+        }
+        return cached.claims();
+    }
+
+    public void put(String token, VerifiedClaims claims) {
+        if (cache == null || claims.expiresAt().isBefore(Instant.now())) {
+            return;
+        }
+        cache.put(signatureOf(token), new CachedToken(token, claims));
+    }
+
+    public CacheStatsDto stats() {
+        if (cache == null) {
+            return new CacheStatsDto("verifiedTokens", 0, 0, 0, 0, 0.0);
+        }
+        CacheStats stats = cache.stats();
+        return new CacheStatsDto("verifiedTokens", cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate());
+    }
+
+    private static String signatureOf(String token) {
+        return token.substring(token.lastIndexOf('.') + 1);
+    }
+
+    private record CachedToken(String token, VerifiedClaims claims) {
+    }
+}
@@ -5,17 +5,33 @@ import com.nasor.roleauthapi.application.dto.AuthResponseDto;
 import com.nasor.roleauthapi.application.dto.LoginRequestDto;
 import com.nasor.roleauthapi.application.dto.RegisterRequestDto;
 import com.nasor.roleauthapi.domain.*;
+import com.nasor.roleauthapi.infraestructure.security.AccessTokenRevocationList;
 import com.nasor.roleauthapi.infraestructure.security.JwtService;
+import com.nasor.roleauthapi.infraestructure.security.PasswordHashingRejectedException;
+import com.nasor.roleauthapi.infraestructure.security.RefreshTokenCodec;
+import com.nasor.roleauthapi.infraestructure.security.VerifiedClaims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
+@Slf4j
 @Service
 public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
@@ -23,23 +39,52 @@ public class AuthServiceImpl implements AuthService {
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
-
-
-    public AuthServiceImpl(UserRepository userRepository, RefreshTokenRepository refreshTokenRepository, AuthenticationManager authenticationManager, JwtService jwtService, PasswordEncoder passwordEncoder) {
+    private final RefreshTokenCodec refreshTokenCodec;
+    private final RefreshRequestCoalescer refreshRequestCoalescer;
+    private final AccessTokenRevocationList accessTokenRevocationList;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter reusedRefreshTokenCounter;
+    private final Counter expiredRefreshTokenCounter;
+    private final Counter unknownRefreshTokenCounter;
+    // Keyed by "operation/outcome" and registered up front so requests do no meter lookup.
+    private final Map<String, Timer> requestTimers = new HashMap<>();
+    private final int maxFamiliesPerUser;
+
+    public AuthServiceImpl(UserRepository userRepository, RefreshTokenRepository refreshTokenRepository, AuthenticationManager authenticationManager, JwtService jwtService, PasswordEncoder passwordEncoder, RefreshTokenCodec refreshTokenCodec, RefreshRequestCoalescer refreshRequestCoalescer, AccessTokenRevocationList accessTokenRevocationList, MeterRegistry meterRegistry,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.refresh-token.max-families-per-user:10}") int maxFamiliesPerUser) {
         this.userRepository = userRepository;
         this.refreshTokenRepository = refreshTokenRepository;
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
         this.passwordEncoder = passwordEncoder;
+        this.refreshTokenCodec = refreshTokenCodec;
+        this.refreshRequestCoalescer = refreshRequestCoalescer;
+        this.accessTokenRevocationList = accessTokenRevocationList;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reusedRefreshTokenCounter = refreshRejection("reuse_detected");
+        this.expiredRefreshTokenCounter = refreshRejection("expired");
+        this.unknownRefreshTokenCounter = refreshRejection("not_found");
+        for (String operation : List.of("register", "login", "refresh")) {
+            for (String outcome : List.of("success", "failure", "conflict", "rejected")) {
+                requestTimers.put(operation + "/" + outcome, Timer.builder("auth.requests")
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry));
+            }
+        }
+        this.maxFamiliesPerUser = maxFamiliesPerUser;
     }
 
     @Override
-    @Transactional
     public AuthResponseDto registerUser(RegisterRequestDto registerRequestDto) {
-        if (userRepository.existsByUsername(registerRequestDto.username())){
-            throw new RuntimeException("Username is already in use");
-        }
+        return timed("register", () -> register(registerRequestDto));
+    }
 
+    // Hashes before the transaction starts, so no pooled connection is held while BCrypt runs.
+    private AuthResponseDto register(RegisterRequestDto registerRequestDto) {
         User newUser = User.builder()
                 .username(registerRequestDto.username())
                 .password(passwordEncoder.encode(registerRequestDto.password()))
@@ -48,18 +93,24 @@ public class AuthServiceImpl implements AuthService {
                 .role(Role.USER)
                 .build();
 
-        User savedUser = userRepository.save(newUser);
+        return transactionTemplate.execute(status -> {
+            User savedUser = userRepository.insertIfAbsent(newUser)
+                    .orElseThrow(UsernameAlreadyExistsException::new);
 
+            String refreshToken = issueRefreshToken(savedUser);
+            String accessToken = jwtService.generateToken(savedUser);
 
-        String refreshToken = createOrUpdateRefreshToken(savedUser).getToken();
-        String accessToken = jwtService.generateToken(savedUser.getUsername(), savedUser.getRole().name());
-
-        return new AuthResponseDto(accessToken, refreshToken, jwtService.getJwtExpiration()/1000L);
+            return new AuthResponseDto(accessToken, refreshToken, jwtService.getJwtExpiration()/1000L);
+        });
     }
 
     @Override
     public AuthResponseDto login(LoginRequestDto loginRequestDto) {
-        System.out.println("DEBUG: Login attempt for username: " + loginRequestDto.username());
+        return timed("login", () -> authenticate(loginRequestDto));
+    }
+
+    private AuthResponseDto authenticate(LoginRequestDto loginRequestDto) {
+        log.debug("Login attempt for username: {}", loginRequestDto.username());
 
         try{
             authenticationManager.authenticate(
@@ -68,59 +119,110 @@ public class AuthServiceImpl implements AuthService {
                             loginRequestDto.password()
                     )
             );
+        } catch (PasswordHashingRejectedException e) {
+            throw e;
         } catch (Exception e){
-            System.err.println("DEBUG: Authentication failed for " + loginRequestDto.username() + ": " + e.getMessage());
+            log.debug("Authentication failed for {}: {}", loginRequestDto.username(), e.getMessage());
             throw new RuntimeException("Invalid username and password");
         }
 
         User user = userRepository.findByUsername(loginRequestDto.username())
                 .orElseThrow(() -> new RuntimeException("Username not found"));
 
-
-        refreshTokenRepository.deleteByUserId(user.getId());
-
-        String accessToken = jwtService.generateToken(user.getUsername(), user.getRole().name());
-        String refreshToken = createOrUpdateRefreshToken(user).getToken();
+        String accessToken = jwtService.generateToken(user);
+        String refreshToken = issueRefreshToken(user);
 
         return new AuthResponseDto(accessToken, refreshToken, jwtService.getJwtExpiration()/1000L);
     }
 
+    // Not transactional: rotation is one statement, and a reuse revocation must commit even though the request fails.
     @Override
-    @Transactional
     public AuthResponseDto refreshToken(String requestRefreshToken) {
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(requestRefreshToken)
-                .orElseThrow(() -> new RuntimeException("Refresh token not found"));
+        return timed("refresh", () -> refreshRequestCoalescer.refresh(requestRefreshToken,
+                () -> rotateRefreshToken(requestRefreshToken)));
+    }
 
-        if (refreshToken.isExpired()) {
-            refreshTokenRepository.delete(refreshToken);
-            throw new RuntimeException("Refresh token expired");
-        }
+    private AuthResponseDto rotateRefreshToken(String requestRefreshToken) {
+        String newRefreshToken = refreshTokenCodec.generate();
+        RefreshToken rotatedToken = refreshTokenRepository.rotate(requestRefreshToken, newRefreshToken,
+                        Instant.now().plusMillis(jwtService.getRefreshExpiration()))
+                .orElseThrow(() -> rejectRefreshToken(requestRefreshToken));
 
-        User user = refreshToken.getUser();
+        String newAccessToken = jwtService.generateToken(rotatedToken.getUser());
 
-        String newAccessToken = jwtService.generateToken(user.getUsername(), user.getRole().name());
+        return new AuthResponseDto(newAccessToken, newRefreshToken, jwtService.getJwtExpiration()/1000L);
+    }
 
-        String newRefreshToken = createOrUpdateRefreshToken(user).getToken();
+    @Override
+    @Transactional
+    public void revokeAllSessions(Long userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
 
-        return new AuthResponseDto(newAccessToken, newRefreshToken, jwtService.getJwtExpiration()/1000L);
+    @Override
+    public void logout(String accessToken) {
+        VerifiedClaims claims = jwtService.verifyToken(accessToken);
+        if (claims.tokenId() == null) {
+            log.debug("Access token without jti cannot be revoked, it stays valid until it expires");
+            return;
+        }
+        accessTokenRevocationList.revoke(claims.tokenId(), claims.expiresAt());
     }
 
-    private RefreshToken createOrUpdateRefreshToken(User user) {
-        Optional<RefreshToken> existingRefreshTokenOptional = refreshTokenRepository.findByUserId(user.getId());
-
-        RefreshToken refreshToken;
-        if (existingRefreshTokenOptional.isPresent()) {
-            refreshToken = existingRefreshTokenOptional.get();
-            refreshToken.setToken(UUID.randomUUID().toString());
-            refreshToken.setExpiresAt(Instant.now().plusMillis(jwtService.getRefreshExpiration()));
-        } else {
-            refreshToken = RefreshToken.builder()
-                    .user(user)
-                    .expiresAt(Instant.now().plusMillis(jwtService.getRefreshExpiration()))
-                    .token(UUID.randomUUID().toString())
-                    .build();
+    private RuntimeException rejectRefreshToken(String requestRefreshToken) {
+        if (refreshTokenRepository.revokeFamilyOfReusedToken(requestRefreshToken)) {
+            reusedRefreshTokenCounter.increment();
+            log.warn("Refresh token reuse detected, token family revoked");
+            return new RuntimeException("Refresh token reuse detected, session revoked");
+        }
+        Optional<RefreshToken> refreshToken = refreshTokenRepository.findByToken(requestRefreshToken);
+        if (refreshToken.isPresent() && refreshToken.get().isExpired()) {
+            refreshTokenRepository.delete(refreshToken.get());
+            expiredRefreshTokenCounter.increment();
+            return new RuntimeException("Refresh token expired");
         }
+        unknownRefreshTokenCounter.increment();
+        return new RuntimeException("Refresh token not found");
+    }
+
+    // Every login starts a new family, so each device keeps its own session alongside the others;
+    // past the per-user cap the least recently used families are dropped.
+    private String issueRefreshToken(User user) {
+        String refreshToken = refreshTokenRepository.save(RefreshToken.builder()
+                        .user(user)
+                        .familyId(UUID.randomUUID())
+                        .expiresAt(Instant.now().plusMillis(jwtService.getRefreshExpiration()))
+                        .token(refreshTokenCodec.generate())
+                        .build())
+                .getToken();
+        if (maxFamiliesPerUser > 0) {
+            refreshTokenRepository.deleteFamiliesBeyond(user.getId(), maxFamiliesPerUser);
+        }
+        return refreshToken;
+    }
+
+    // Tagged by operation and outcome only; usernames and messages would explode the series count.
+    private AuthResponseDto timed(String operation, Supplier<AuthResponseDto> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            AuthResponseDto response = action.get();
+            outcome = "success";
+            return response;
+        } catch (UsernameAlreadyExistsException e) {
+            outcome = "conflict";
+            throw e;
+        } catch (PasswordHashingRejectedException e) {
+            outcome = "rejected";
+            throw e;
+        } finally {
+            sample.stop(requestTimers.get(operation + "/" + outcome));
+        }
+    }
 
-        return refreshTokenRepository.save(refreshToken);
+    private Counter refreshRejection(String reason) {
+        return Counter.builder("auth.refresh.rejected")
+                .tag("reason", reason)
+                .register(meterRegistry);
     }
 }
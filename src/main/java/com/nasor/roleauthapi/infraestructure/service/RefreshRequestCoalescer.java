@@ -0,0 +1,86 @@
+package com.nasor.roleauthapi.infraestructure.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nasor.roleauthapi.application.dto.AuthResponseDto;
+import com.nasor.roleauthapi.infraestructure.security.RefreshTokenCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent refreshes of the same token on this node into a single rotation.
+ * Callers that arrive while a rotation is in flight wait for it and share its result. Within the grace
+ * window, a late duplicate (client retry, second tab) gets the pair that was just issued instead of being
+ * treated as reuse of a rotated-away token. Failures are shared with waiters but never cached.
+ */
+@Component
+public class RefreshRequestCoalescer {
+    private static final Base64.Encoder KEY_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final ConcurrentHashMap<String, CompletableFuture<AuthResponseDto>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<String, AuthResponseDto> recentlyRotated;
+    private final RefreshTokenCodec refreshTokenCodec;
+
+    public RefreshRequestCoalescer(RefreshTokenCodec refreshTokenCodec,
+                                   @Value("${app.refresh-token.grace-window-seconds:10}") long graceWindowSeconds,
+                                   @Value("${app.refresh-token.grace-cache.maximum-size:10000}") long maximumSize) {
+        this.refreshTokenCodec = refreshTokenCodec;
+        this.recentlyRotated = Caffeine.newBuilder()
+                .maximumSize(graceWindowSeconds > 0 ? maximumSize : 0)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(graceWindowSeconds, 0)))
+                .build();
+    }
+
+    public AuthResponseDto refresh(String refreshToken, Supplier<AuthResponseDto> rotation) {
+        // Keyed by digest so neither map keeps usable tokens around.
+        String key = KEY_ENCODER.encodeToString(refreshTokenCodec.hash(refreshToken));
+        AuthResponseDto recent = recentlyRotated.getIfPresent(key);
+        if (recent != null) {
+            return recent;
+        }
+
+        CompletableFuture<AuthResponseDto> rotationResult = new CompletableFuture<>();
+        CompletableFuture<AuthResponseDto> running = inFlight.putIfAbsent(key, rotationResult);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            // A rotation may have completed between the grace lookup and claiming the key.
+            AuthResponseDto response = recentlyRotated.getIfPresent(key);
+            if (response == null) {
+                response = rotation.get();
+                // Cached before the in-flight entry is released, so no duplicate slips through in between.
+                recentlyRotated.put(key, response);
+            }
+            rotationResult.complete(response);
+            return response;
+        } catch (Throwable e) {
+            // Errors too, or waiters would block forever on a future nobody completes.
+            rotationResult.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, rotationResult);
+        }
+    }
+
+    private static AuthResponseDto await(CompletableFuture<AuthResponseDto> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -2,26 +2,33 @@ package com.nasor.roleauthapi.infraestructure.service;
 
 import com.nasor.roleauthapi.application.UserService;
 import com.nasor.roleauthapi.application.dto.RegisterRequestDto;
+import com.nasor.roleauthapi.application.dto.UserPageResponseDto;
 import com.nasor.roleauthapi.application.dto.UserResponseDto;
 import com.nasor.roleauthapi.domain.Role;
 import com.nasor.roleauthapi.domain.User;
 import com.nasor.roleauthapi.domain.UserRepository;
+import com.nasor.roleauthapi.infraestructure.security.UserDetailsCache;
 import jakarta.transaction.Transactional;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class UserServiceImpl implements UserService {
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserDetailsCache userDetailsCache;
 
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userDetailsCache = userDetailsCache;
     }
 
     private UserResponseDto toUserResponseDto(User user) {
@@ -41,11 +48,24 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<UserResponseDto> findAllUsers() {
-        return userRepository.findAllUsers()
-                .stream()
-                .map(this::toUserResponseDto)
-                .collect(Collectors.toList());
+    public void exportUsers(Consumer<UserResponseDto> consumer) {
+        userRepository.forEachUser(user -> consumer.accept(toUserResponseDto(user)));
+    }
+
+    @Override
+    public UserPageResponseDto findUsers(Long cursor, int limit, Role role, String usernamePrefix) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // One extra row tells whether another page exists without a count query.
+        List<User> users = userRepository.findPageAfterId(cursor, pageSize + 1, role, usernamePrefix);
+
+        Long nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            nextCursor = users.get(pageSize - 1).getId();
+        }
+        return new UserPageResponseDto(
+                users.stream().map(this::toUserResponseDto).collect(Collectors.toList()),
+                nextCursor);
     }
 
     @Override
@@ -53,6 +73,7 @@ public class UserServiceImpl implements UserService {
     public UserResponseDto update(Long id, RegisterRequestDto registerRequestDto) {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found!"));
+        userDetailsCache.evict(existingUser.getUsername());
 
         if (registerRequestDto.username() != null && !registerRequestDto.username().isEmpty()) {
             existingUser.setUsername(registerRequestDto.username());
@@ -68,6 +89,7 @@ public class UserServiceImpl implements UserService {
         }
 
         User updatedUser = userRepository.save(existingUser);
+        userDetailsCache.evict(updatedUser.getUsername());
         return toUserResponseDto(updatedUser);
     }
 
@@ -77,6 +99,7 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new RuntimeException("User not found!"));
         userToUpdate.setRole(role);
         userRepository.save(userToUpdate);
+        userDetailsCache.evict(userToUpdate.getUsername());
         return toUserResponseDto(userToUpdate);
     }
 }
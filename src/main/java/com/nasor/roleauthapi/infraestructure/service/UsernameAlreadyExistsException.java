@@ -0,0 +1,12 @@
+package com.nasor.roleauthapi.infraestructure.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class UsernameAlreadyExistsException extends ResponseStatusException {
+    private static final long serialVersionUID = 1L;
+
+    public UsernameAlreadyExistsException() {
+        super(HttpStatus.CONFLICT, "Username is already in use");
+    }
+}
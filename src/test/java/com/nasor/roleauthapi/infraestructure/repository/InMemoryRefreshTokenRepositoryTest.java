@@ -0,0 +1,98 @@
+package com.nasor.roleauthapi.infraestructure.repository;
+
+import com.nasor.roleauthapi.domain.RefreshTokenRepository;
+import com.nasor.roleauthapi.domain.Role;
+import com.nasor.roleauthapi.domain.User;
+import com.nasor.roleauthapi.domain.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InMemoryRefreshTokenRepositoryTest extends RefreshTokenRepositoryContractTest {
+    private final Map<Long, User> users = new HashMap<>();
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private InMemoryRefreshTokenRepository repository;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(users.get(invocation.<Long>getArgument(0))));
+        repository = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.destroy();
+    }
+
+    @Override
+    protected RefreshTokenRepository repository() {
+        return repository;
+    }
+
+    @Override
+    protected User persistedUser(String username) {
+        User user = User.builder()
+                .id((long) users.size() + 1)
+                .username(username)
+                .role(Role.USER)
+                .build();
+        users.put(user.getId(), user);
+        return user;
+    }
+
+    @Test
+    void tokensSurviveARestart() {
+        User user = persistedUser("restart");
+        String rotatedAway = save(user, inOneHour()).getToken();
+        String current = refreshTokenCodec.generate();
+        repository.rotate(rotatedAway, current, inOneHour());
+        String deleted = save(persistedUser("restart-deleted"), inOneHour()).getToken();
+        repository.delete(repository.findByToken(deleted).orElseThrow());
+
+        repository.destroy();
+        repository = open();
+
+        assertThat(repository.findByToken(current)).isPresent();
+        assertThat(repository.findByToken(rotatedAway)).isEmpty();
+        assertThat(repository.findByToken(deleted)).isEmpty();
+        assertThat(repository.revokeFamilyOfReusedToken(rotatedAway)).isTrue();
+    }
+
+    @Test
+    void compactionKeepsTheLatestState() {
+        User user = persistedUser("compaction");
+        String token = save(user, inOneHour()).getToken();
+        for (int i = 0; i < 5; i++) {
+            String next = refreshTokenCodec.generate();
+            repository.rotate(token, next, inOneHour());
+            token = next;
+        }
+
+        repository.sweep();
+        repository.destroy();
+        repository = open();
+
+        assertThat(repository.findByToken(token)).isPresent();
+    }
+
+    // Compacts after every few records so the tests exercise the snapshot path too.
+    private InMemoryRefreshTokenRepository open() {
+        return new InMemoryRefreshTokenRepository(userRepository, refreshTokenCodec, 4,
+                directory.resolve("refresh-tokens").toString(), 3);
+    }
+}
@@ -0,0 +1,34 @@
+package com.nasor.roleauthapi.infraestructure.repository;
+
+import com.nasor.roleauthapi.domain.RefreshTokenRepository;
+import com.nasor.roleauthapi.domain.Role;
+import com.nasor.roleauthapi.domain.User;
+import com.nasor.roleauthapi.domain.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest(properties = "app.refresh-token.store=jpa")
+@Transactional
+class JpaRefreshTokenRepositoryContractTest extends RefreshTokenRepositoryContractTest {
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    protected RefreshTokenRepository repository() {
+        return refreshTokenRepository;
+    }
+
+    @Override
+    protected User persistedUser(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .password("not-a-real-hash")
+                .firstName("Contract")
+                .lastName("Test")
+                .role(Role.USER)
+                .build());
+    }
+}
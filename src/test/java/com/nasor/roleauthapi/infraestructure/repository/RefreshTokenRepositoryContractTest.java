@@ -0,0 +1,176 @@
+package com.nasor.roleauthapi.infraestructure.repository;
+
+import com.nasor.roleauthapi.domain.RefreshToken;
+import com.nasor.roleauthapi.domain.RefreshTokenRepository;
+import com.nasor.roleauthapi.domain.User;
+import com.nasor.roleauthapi.infraestructure.security.RefreshTokenCodec;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Behaviour every {@link RefreshTokenRepository} adapter has to share; one subclass per adapter.
+ */
+abstract class RefreshTokenRepositoryContractTest {
+    protected final RefreshTokenCodec refreshTokenCodec = new RefreshTokenCodec();
+
+    protected abstract RefreshTokenRepository repository();
+
+    protected abstract User persistedUser(String username);
+
+    @Test
+    void savedTokenIsFoundByItsValue() {
+        User user = persistedUser("contract-find");
+        RefreshToken saved = save(user, inOneHour());
+
+        Optional<RefreshToken> found = repository().findByToken(saved.getToken());
+
+        assertThat(found).isPresent();
+        assertThat(found.get().getId()).isEqualTo(saved.getId());
+        assertThat(found.get().getToken()).isEqualTo(saved.getToken());
+        assertThat(found.get().getUser().getUsername()).isEqualTo(user.getUsername());
+        assertThat(found.get().getExpiresAt()).isEqualTo(saved.getExpiresAt());
+    }
+
+    @Test
+    void unknownTokenIsNotFound() {
+        assertThat(repository().findByToken(refreshTokenCodec.generate())).isEmpty();
+    }
+
+    @Test
+    void eachLoginKeepsItsOwnFamily() {
+        User user = persistedUser("contract-families");
+        RefreshToken phone = save(user, inOneHour());
+        RefreshToken laptop = save(user, inOneHour());
+
+        Optional<RefreshToken> rotated = repository().rotate(phone.getToken(), refreshTokenCodec.generate(), inOneHour());
+
+        assertThat(rotated).isPresent();
+        assertThat(rotated.get().getFamilyId()).isEqualTo(phone.getFamilyId());
+        assertThat(repository().findByToken(laptop.getToken())).isPresent();
+    }
+
+    @Test
+    void rotateSwapsTheTokenAndReturnsItsOwner() {
+        User user = persistedUser("contract-rotate");
+        String currentToken = save(user, inOneHour()).getToken();
+        String newToken = refreshTokenCodec.generate();
+        Instant newExpiresAt = inOneHour().plus(1, ChronoUnit.HOURS);
+
+        Optional<RefreshToken> rotated = repository().rotate(currentToken, newToken, newExpiresAt);
+
+        assertThat(rotated).isPresent();
+        assertThat(rotated.get().getToken()).isEqualTo(newToken);
+        assertThat(rotated.get().getExpiresAt()).isEqualTo(newExpiresAt);
+        assertThat(rotated.get().getFamilyId()).isNotNull();
+        assertThat(rotated.get().getUser().getId()).isEqualTo(user.getId());
+        assertThat(rotated.get().getUser().getRole()).isEqualTo(user.getRole());
+        assertThat(repository().findByToken(currentToken)).isEmpty();
+        assertThat(repository().findByToken(newToken)).isPresent();
+    }
+
+    @Test
+    void aTokenRotatesOnlyOnce() {
+        User user = persistedUser("contract-rotate-once");
+        String currentToken = save(user, inOneHour()).getToken();
+
+        assertThat(repository().rotate(currentToken, refreshTokenCodec.generate(), inOneHour())).isPresent();
+        assertThat(repository().rotate(currentToken, refreshTokenCodec.generate(), inOneHour())).isEmpty();
+    }
+
+    @Test
+    void expiredTokenDoesNotRotate() {
+        User user = persistedUser("contract-expired");
+        String expiredToken = save(user, Instant.now().minus(1, ChronoUnit.MINUTES)).getToken();
+
+        assertThat(repository().rotate(expiredToken, refreshTokenCodec.generate(), inOneHour())).isEmpty();
+    }
+
+    @Test
+    void deleteRemovesTheToken() {
+        User user = persistedUser("contract-delete");
+        String token = save(user, inOneHour()).getToken();
+
+        repository().delete(repository().findByToken(token).orElseThrow());
+
+        assertThat(repository().findByToken(token)).isEmpty();
+    }
+
+    @Test
+    void deleteByUserIdRevokesEveryFamilyOfThatUserOnly() {
+        User user = persistedUser("contract-delete-user");
+        User otherUser = persistedUser("contract-delete-other");
+        String phoneToken = save(user, inOneHour()).getToken();
+        String laptopToken = save(user, inOneHour()).getToken();
+        String otherToken = save(otherUser, inOneHour()).getToken();
+
+        repository().deleteByUserId(user.getId());
+
+        assertThat(repository().findByToken(phoneToken)).isEmpty();
+        assertThat(repository().findByToken(laptopToken)).isEmpty();
+        assertThat(repository().findByToken(otherToken)).isPresent();
+    }
+
+    @Test
+    void deleteFamiliesBeyondKeepsTheMostRecentlyUsedOnes() {
+        User user = persistedUser("contract-cap");
+        User otherUser = persistedUser("contract-cap-other");
+        String oldest = save(user, inOneHour()).getToken();
+        String used = save(user, inOneHour()).getToken();
+        String newest = save(user, inOneHour().plus(1, ChronoUnit.MINUTES)).getToken();
+        String otherToken = save(otherUser, Instant.now().plus(1, ChronoUnit.MINUTES)).getToken();
+        String rotated = refreshTokenCodec.generate();
+        repository().rotate(used, rotated, inOneHour().plus(2, ChronoUnit.MINUTES));
+
+        repository().deleteFamiliesBeyond(user.getId(), 2);
+
+        assertThat(repository().findByToken(oldest)).isEmpty();
+        assertThat(repository().findByToken(rotated)).isPresent();
+        assertThat(repository().findByToken(newest)).isPresent();
+        assertThat(repository().findByToken(otherToken)).isPresent();
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesOnlyItsFamily() {
+        User user = persistedUser("contract-reuse");
+        String stolenToken = save(user, inOneHour()).getToken();
+        String otherDeviceToken = save(user, inOneHour()).getToken();
+        String rotatedToken = refreshTokenCodec.generate();
+        repository().rotate(stolenToken, rotatedToken, inOneHour());
+
+        assertThat(repository().revokeFamilyOfReusedToken(stolenToken)).isTrue();
+
+        assertThat(repository().findByToken(rotatedToken)).isEmpty();
+        assertThat(repository().findByToken(otherDeviceToken)).isPresent();
+        assertThat(repository().revokeFamilyOfReusedToken(stolenToken)).isFalse();
+    }
+
+    @Test
+    void unknownTokenIsNotReported() {
+        User user = persistedUser("contract-no-reuse");
+        String token = save(user, inOneHour()).getToken();
+
+        assertThat(repository().revokeFamilyOfReusedToken(refreshTokenCodec.generate())).isFalse();
+        assertThat(repository().revokeFamilyOfReusedToken(token)).isFalse();
+        assertThat(repository().findByToken(token)).isPresent();
+    }
+
+    protected RefreshToken save(User user, Instant expiresAt) {
+        return repository().save(RefreshToken.builder()
+                .user(user)
+                .familyId(UUID.randomUUID())
+                .token(refreshTokenCodec.generate())
+                .expiresAt(expiresAt)
+                .build());
+    }
+
+    // Truncated so adapters backed by a timestamp column round-trip it exactly.
+    protected static Instant inOneHour() {
+        return Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.MILLIS);
+    }
+}
@@ -0,0 +1,94 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Hs256TokenEncoderTest {
+    private static final Key KEY = Keys.hmacShaKeyFor(
+            "encoder-test-hmac-secret-of-at-least-256-bits".getBytes(StandardCharsets.US_ASCII));
+    private static final long ISSUED_AT = System.currentTimeMillis() / 1000L;
+    private static final long EXPIRES_AT = ISSUED_AT + 3600;
+
+    private final Hs256TokenEncoder encoder = new Hs256TokenEncoder(KEY);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "plain",
+            "quote \" inside",
+            "back \\ slash",
+            "control \u0000 \u0001 \n \t \u001f chars",
+            "non-ASCII \u00F1and\u00FA caf\u00E9 Gr\u00FC\u00DFe \u65E5\u672C\u8A9E",
+            "surrogate pair \uD83D\uDE00 and \uD834\uDD1E",
+            "mixed \"\\\n\u00E9\uD83D\uDE00"
+    })
+    void claimsRoundTripThroughJjwt(String text) {
+        String token = encoder.encode("user " + text, "ADMIN", 42L, text, text + " last", "jti " + text,
+                ISSUED_AT, EXPIRES_AT);
+
+        Claims claims = parse(token);
+
+        assertThat(claims.getSubject()).isEqualTo("user " + text);
+        assertThat(claims.get(JwtService.ROLE_CLAIM, String.class)).isEqualTo("ADMIN");
+        assertThat(claims.get(JwtService.USER_ID_CLAIM, Long.class)).isEqualTo(42L);
+        assertThat(claims.get(JwtService.FIRST_NAME_CLAIM, String.class)).isEqualTo(text);
+        assertThat(claims.get(JwtService.LAST_NAME_CLAIM, String.class)).isEqualTo(text + " last");
+        assertThat(claims.getId()).isEqualTo("jti " + text);
+        assertThat(claims.getIssuedAt().toInstant().getEpochSecond()).isEqualTo(ISSUED_AT);
+        assertThat(claims.getExpiration().toInstant().getEpochSecond()).isEqualTo(EXPIRES_AT);
+    }
+
+    @Test
+    void optionalClaimsAreLeftOut() {
+        Claims claims = parse(encoder.encode("subject", null, null, null, null, "id", ISSUED_AT, EXPIRES_AT));
+
+        assertThat(claims.keySet()).containsExactlyInAnyOrder("jti", "sub", "iat", "exp");
+    }
+
+    @Test
+    void headerIsExactlyHs256() {
+        String header = encoder.encode("subject", "USER", null, null, null, "id", ISSUED_AT, EXPIRES_AT)
+                .split("\\.")[0];
+
+        assertThat(new String(Base64.getUrlDecoder().decode(header), StandardCharsets.UTF_8))
+                .isEqualTo("{\"alg\":\"HS256\"}");
+    }
+
+    @Test
+    void signatureIsHmacSha256OverHeaderAndPayload() throws Exception {
+        String token = encoder.encode("subject", "USER", 7L, "First", "Last", "id", ISSUED_AT, EXPIRES_AT);
+        int signatureStart = token.lastIndexOf('.');
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(KEY);
+        byte[] expected = mac.doFinal(token.substring(0, signatureStart).getBytes(StandardCharsets.US_ASCII));
+
+        assertThat(token.substring(signatureStart + 1))
+                .isEqualTo(Base64.getUrlEncoder().withoutPadding().encodeToString(expected));
+    }
+
+    @Test
+    void reusedBuffersDoNotLeakIntoTheNextToken() {
+        encoder.encode("a-much-longer-subject-" + "x".repeat(600), "ADMIN", 1L, "F".repeat(300), "L", "id",
+                ISSUED_AT, EXPIRES_AT);
+
+        Claims claims = parse(encoder.encode("short", "USER", null, null, null, "id2", ISSUED_AT, EXPIRES_AT));
+
+        assertThat(claims.getSubject()).isEqualTo("short");
+        assertThat(claims.get(JwtService.FIRST_NAME_CLAIM)).isNull();
+    }
+
+    private static Claims parse(String token) {
+        return Jwts.parserBuilder().setSigningKey(KEY).build().parseClaimsJws(token).getBody();
+    }
+}
@@ -0,0 +1,197 @@
+package com.nasor.roleauthapi.infraestructure.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Hs256TokenVerifierTest {
+    private static final byte[] SECRET = "verifier-test-hmac-secret-32byte".getBytes(StandardCharsets.US_ASCII);
+    private static final Key KEY = Keys.hmacShaKeyFor(SECRET);
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final Hs256TokenEncoder encoder = new Hs256TokenEncoder(KEY);
+    private final Hs256TokenVerifier verifier = new Hs256TokenVerifier(KEY);
+    private JwtService jwtService;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = newJwtService("HS256", false);
+        now = System.currentTimeMillis() / 1000L;
+    }
+
+    @Test
+    void verifiesEncoderTokens() {
+        String token = encoder.encode("alice", "ADMIN", 7L, "Alice", "Liddell", "id-1", now, now + 600);
+
+        VerifiedClaims expected = new VerifiedClaims("alice", "ADMIN", 7L, "Alice", "Liddell",
+                Instant.ofEpochSecond(now + 600), "id-1");
+        assertThat(verifier.verify(token)).isEqualTo(expected);
+        assertThat(jwtService.verifyToken(token)).isEqualTo(expected);
+    }
+
+    @Test
+    void verifiesJjwtBuilderTokens() {
+        String token = Jwts.builder()
+                .claim(JwtService.ROLE_CLAIM, "USER")
+                .claim(JwtService.USER_ID_CLAIM, 9L)
+                .claim(JwtService.FIRST_NAME_CLAIM, "Bob")
+                .claim(JwtService.LAST_NAME_CLAIM, "Builder")
+                .setId("id-2")
+                .setSubject("bob")
+                .setIssuedAt(new Date(now * 1000L))
+                .setExpiration(new Date((now + 600) * 1000L))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+
+        VerifiedClaims expected = new VerifiedClaims("bob", "USER", 9L, "Bob", "Builder",
+                Instant.ofEpochSecond(now + 600), "id-2");
+        assertThat(verifier.verify(token)).isEqualTo(expected);
+        assertThat(jwtService.verifyToken(token)).isEqualTo(expected);
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        String token = validToken();
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char first = token.charAt(signatureStart);
+        String tampered = token.substring(0, signatureStart) + (first == 'A' ? 'B' : 'A')
+                + token.substring(signatureStart + 1);
+
+        assertRejected(tampered);
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        String[] segments = validToken().split("\\.");
+        String payload = "{\"role\":\"ADMIN\",\"jti\":\"id\",\"sub\":\"alice\",\"iat\":" + now
+                + ",\"exp\":" + (now + 600) + "}";
+
+        assertRejected(segments[0] + "." + base64Url(payload) + "." + segments[2]);
+    }
+
+    @Test
+    void rejectsAlgNone() {
+        String[] segments = validToken().split("\\.");
+
+        assertRejected(base64Url("{\"alg\":\"none\"}") + "." + segments[1] + ".");
+    }
+
+    @Test
+    void rejectsOtherAlgorithmSignedWithHs256() throws Exception {
+        String payload = validToken().split("\\.")[1];
+
+        assertRejected(signed(base64Url("{\"alg\":\"HS384\"}"), payload));
+    }
+
+    @Test
+    void rejectsMalformedBase64() throws Exception {
+        String header = validToken().split("\\.")[0];
+
+        assertRejected(signed(header, "eyJzdWIiOi*hbGljZSJ9"));
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        assertRejected(encoder.encode("alice", "USER", null, null, null, "id", now - 600, now - 60));
+    }
+
+    @Test
+    void rejectsExtraSegment() {
+        assertRejected(validToken() + ".c2lnbmF0dXJl");
+    }
+
+    @Test
+    void rejectsMissingSegment() {
+        String token = validToken();
+
+        assertRejected(token.substring(0, token.lastIndexOf('.')));
+    }
+
+    @Test
+    void rejectsUnknownKeyId() throws Exception {
+        String payload = validToken().split("\\.")[1];
+
+        assertRejected(signed(base64Url("{\"" + JwsHeader.KEY_ID + "\":\"unknown\",\"alg\":\"HS256\"}"), payload));
+    }
+
+    @Test
+    void fallsBackToJjwtForUnexpectedHeader() throws Exception {
+        String token = validToken();
+        String payload = token.split("\\.")[1];
+        String withTyp = signed(base64Url("{\"typ\":\"JWT\",\"alg\":\"HS256\"}"), payload);
+
+        assertThat(verifier.verify(withTyp)).isNull();
+        assertThat(jwtService.verifyToken(withTyp)).isEqualTo(verifier.verify(token));
+    }
+
+    @Test
+    void rejectsUnknownRole() {
+        String token = encoder.encode("alice", "ROOT", 7L, "Alice", "Liddell", "id", now, now + 600);
+
+        assertThatThrownBy(() -> jwtService.verifyToken(token)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void es256ModeRejectsHs256TokensByDefault() {
+        JwtService es256Service = newJwtService(JwtKeyRing.ES256, false);
+
+        assertThatThrownBy(() -> es256Service.verifyToken(validToken())).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void es256ModeAcceptsHs256TokensDuringMigration() {
+        JwtService es256Service = newJwtService(JwtKeyRing.ES256, true);
+
+        assertThat(es256Service.verifyToken(validToken())).isEqualTo(verifier.verify(validToken()));
+    }
+
+    private static JwtService newJwtService(String signingAlgorithm, boolean acceptHs256) {
+        JwtService service = new JwtService(new VerifiedTokenCache(false, 1, 1, new SimpleMeterRegistry()),
+                new JwtKeyRing(signingAlgorithm, "", "", ""));
+        ReflectionTestUtils.setField(service, "secretKey", Base64.getEncoder().encodeToString(SECRET));
+        ReflectionTestUtils.setField(service, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(service, "refreshExpiration", 604_800_000L);
+        ReflectionTestUtils.setField(service, "fastVerify", true);
+        ReflectionTestUtils.setField(service, "acceptHs256", acceptHs256);
+        service.init();
+        return service;
+    }
+
+    private String validToken() {
+        return encoder.encode("alice", "USER", null, null, null, "id", now, now + 600);
+    }
+
+    private void assertRejected(String token) {
+        assertThat(verifier.verify(token)).isNull();
+        assertThatThrownBy(() -> jwtService.verifyToken(token)).isInstanceOf(JwtException.class);
+    }
+
+    private static String signed(String header, String payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(KEY);
+        String signingInput = header + "." + payload;
+        return signingInput + "." + BASE64_URL.encodeToString(
+                mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static String base64Url(String json) {
+        return BASE64_URL.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,81 @@
+package com.nasor.roleauthapi.infraestructure.service;
+
+import com.nasor.roleauthapi.application.dto.AuthResponseDto;
+import com.nasor.roleauthapi.infraestructure.security.RefreshTokenCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RefreshRequestCoalescerTest {
+    private final RefreshTokenCodec refreshTokenCodec = new RefreshTokenCodec();
+    private final RefreshRequestCoalescer coalescer = new RefreshRequestCoalescer(refreshTokenCodec, 10, 100);
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void waitersSeeAnErrorThrownByTheRotation() throws Exception {
+        String token = refreshTokenCodec.generate();
+        CountDownLatch rotating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<AuthResponseDto> first = CompletableFuture.supplyAsync(() -> coalescer.refresh(token, () -> {
+            rotating.countDown();
+            await(release);
+            throw new StackOverflowError("rotation failed");
+        }), executor);
+        assertThat(rotating.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<AuthResponseDto> waiter = CompletableFuture.supplyAsync(() -> coalescer.refresh(token,
+                () -> new AuthResponseDto("unexpected", "unexpected", 0L)), executor);
+        awaitWaiterOnInFlightRotation();
+        release.countDown();
+
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+    }
+
+    @Test
+    void aFailedRotationIsNotLeftInFlight() {
+        String token = refreshTokenCodec.generate();
+        AuthResponseDto response = new AuthResponseDto("access", "refresh", 3600L);
+
+        assertThatThrownBy(() -> coalescer.refresh(token, () -> {
+            throw new OutOfMemoryError("rotation failed");
+        })).isInstanceOf(OutOfMemoryError.class);
+
+        assertThat(coalescer.refresh(token, () -> response)).isSameAs(response);
+    }
+
+    // A caller blocked in join() shows up as a dependent of the in-flight future.
+    private void awaitWaiterOnInFlightRotation() throws InterruptedException {
+        @SuppressWarnings("unchecked")
+        Map<String, CompletableFuture<AuthResponseDto>> inFlight =
+                (Map<String, CompletableFuture<AuthResponseDto>>) ReflectionTestUtils.getField(coalescer, "inFlight");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (inFlight.values().stream().noneMatch(running -> running.getNumberOfDependents() > 0)) {
+            assertThat(System.nanoTime()).as("waiter joined the in-flight rotation").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
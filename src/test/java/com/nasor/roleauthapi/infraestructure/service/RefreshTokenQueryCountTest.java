@@ -0,0 +1,163 @@
+package com.nasor.roleauthapi.infraestructure.service;
+
+import com.nasor.roleauthapi.application.AuthService;
+import com.nasor.roleauthapi.application.dto.AuthResponseDto;
+import com.nasor.roleauthapi.domain.RefreshToken;
+import com.nasor.roleauthapi.domain.RefreshTokenRepository;
+import com.nasor.roleauthapi.domain.Role;
+import com.nasor.roleauthapi.domain.User;
+import com.nasor.roleauthapi.domain.UserRepository;
+import com.nasor.roleauthapi.infraestructure.security.RefreshTokenCodec;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.refresh-token.store=jpa")
+@Transactional
+class RefreshTokenQueryCountTest {
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RefreshTokenCodec refreshTokenCodec;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private StatementCountingDataSource statementCounter;
+
+    @Test
+    void successfulRefreshIsASingleStatement() {
+        User user = userRepository.save(User.builder()
+                .username("query-count-" + UUID.randomUUID())
+                .password("not-a-real-hash")
+                .firstName("Query")
+                .lastName("Count")
+                .role(Role.USER)
+                .build());
+        String token = refreshTokenRepository.save(RefreshToken.builder()
+                        .user(user)
+                        .familyId(UUID.randomUUID())
+                        .expiresAt(Instant.now().plus(1, ChronoUnit.DAYS))
+                        .token(refreshTokenCodec.generate())
+                        .build())
+                .getToken();
+        // Pending inserts would otherwise be flushed inside the counted window.
+        entityManager.flush();
+
+        statementCounter.startCounting();
+        AuthResponseDto response = authService.refreshToken(token);
+        int statements = statementCounter.stopCounting();
+
+        assertThat(response.refreshToken()).isNotEqualTo(token);
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @TestConfiguration
+    static class StatementCountingConfig {
+        @Bean
+        static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)
+                            ? new StatementCountingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    // Counts statement executions on the counting thread only, so scheduled jobs do not skew the result.
+    static class StatementCountingDataSource extends DelegatingDataSource {
+        private volatile Thread countingThread;
+        private int executions;
+
+        StatementCountingDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        void startCounting() {
+            executions = 0;
+            countingThread = Thread.currentThread();
+        }
+
+        int stopCounting() {
+            countingThread = null;
+            return executions;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return countingConnection(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return countingConnection(super.getConnection(username, password));
+        }
+
+        private Connection countingConnection(Connection connection) {
+            return proxy(Connection.class, (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (result instanceof CallableStatement statement) {
+                    return countingStatement(CallableStatement.class, statement);
+                }
+                if (result instanceof PreparedStatement statement) {
+                    return countingStatement(PreparedStatement.class, statement);
+                }
+                if (result instanceof Statement statement) {
+                    return countingStatement(Statement.class, statement);
+                }
+                return result;
+            });
+        }
+
+        private <T extends Statement> T countingStatement(Class<T> type, T statement) {
+            return proxy(type, (proxy, method, args) -> {
+                if (method.getName().startsWith("execute") && Thread.currentThread() == countingThread) {
+                    executions++;
+                }
+                return invoke(statement, method, args);
+            });
+        }
+
+        private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return type.cast(Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                    new Class<?>[]{type}, handler));
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}